@@ -0,0 +1,306 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * On-device throughput measurements for {@link DatabaseHelper}. Results go to logcat under
+ * the "DatabaseBenchmark" tag. The 1M-row runs take a long time and only run when the
+ * instrumentation is started with {@code -e largeBenchmarks true}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseBenchmark {
+
+    private static final String TAG = "DatabaseBenchmark";
+    private static final String BENCH_DB = "weighttracker_benchmark.db";
+    private static final String STRESS_DB = "weighttracker_stress.db";
+
+    private Context context;
+    private DatabaseHelper db;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(BENCH_DB);
+        // a real file, so commits pay for the same syncs they would in the app
+        db = new DatabaseHelper(context, BENCH_DB);
+        userId = db.createUserFull("Bench", "User", "bench@example.com", "bench", "secret1", "Q", "A");
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(BENCH_DB);
+        context.deleteDatabase(STRESS_DB);
+    }
+
+    @Test
+    public void bulkInsert_vs_perRow_10k() {
+        compareInserts(10_000);
+    }
+
+    @Test
+    public void bulkInsert_vs_perRow_1m() {
+        assumeTrue(largeRunsEnabled());
+        compareInserts(1_000_000);
+    }
+
+    private void compareInserts(int rows) {
+        List<DatabaseHelper.Entry> entries = series(rows);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (DatabaseHelper.Entry e : entries) db.addWeight(userId, e.epochDay, e.weight);
+        long perRowNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        int inserted = db.addWeights(userId, entries);
+        long bulkNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        assertEquals(rows, inserted);
+        report("insert per-row", rows, perRowNanos);
+        report("insert bulk", rows, bulkNanos);
+        assertTrue("bulk insert should beat per-row inserts", bulkNanos < perRowNanos);
+    }
+
+    @Test
+    public void userLookups_cachedStatement_vs_cursor() {
+        for (int i = 0; i < 1_000; i++) {
+            db.createUserFull("U", "U", "u" + i + "@example.com", "user" + i, "secret1", "Q", "A");
+        }
+        final int calls = 20_000;
+        android.database.sqlite.SQLiteDatabase raw = db.getReadableDatabase();
+
+        // warm up both paths so the first compile isn't counted
+        db.usernameExists("user1");
+        db.getPasswordHash("user1");
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < calls; i++) {
+            // what usernameExists and the login lookup did before: build a query, walk a cursor, close it
+            String name = "user" + (i % 1_000);
+            try (Cursor c = raw.query("users", new String[]{"_id"}, "username=?",
+                    new String[]{name}, null, null, null)) {
+                assertTrue(c.moveToFirst());
+            }
+            try (Cursor c = raw.query("users", new String[]{"password"}, "username=?",
+                    new String[]{name}, null, null, null)) {
+                assertTrue(c.moveToFirst());
+            }
+        }
+        long cursorNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < calls; i++) {
+            String name = "user" + (i % 1_000);
+            assertTrue(db.usernameExists(name));
+            assertEquals("secret1", db.getPasswordHash(name));
+        }
+        long cachedNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        report("lookup cursor", calls * 2, cursorNanos);
+        report("lookup cached statement", calls * 2, cachedNanos);
+    }
+
+    // What renderList() used to do (walk a Cursor, look columns up by name for every row) against
+    // loading the history once into WeightSeries arrays and reading those
+    @Test
+    public void seriesArrays_vs_cursorTraversal_100k() {
+        final int rows = 100_000;
+        final int passes = 20;
+        db.addWeights(userId, series(rows));
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        double cursorSum = 0;
+        for (int p = 0; p < passes; p++) {
+            try (Cursor c = db.getAllWeights(userId)) {
+                while (c.moveToNext()) {
+                    cursorSum += c.getLong(c.getColumnIndexOrThrow("_id"))
+                            + c.getInt(c.getColumnIndexOrThrow("entry_day"))
+                            + c.getDouble(c.getColumnIndexOrThrow("weight_lbs"));
+                }
+            }
+        }
+        long cursorNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        Runtime rt = Runtime.getRuntime();
+        rt.gc();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+        start = SystemClock.elapsedRealtimeNanos();
+        WeightSeries cached = db.loadSeries(userId);
+        long loadNanos = SystemClock.elapsedRealtimeNanos() - start;
+        rt.gc();
+        long seriesBytes = rt.totalMemory() - rt.freeMemory() - heapBefore;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        double arraySum = 0;
+        for (int p = 0; p < passes; p++) {
+            for (int i = cached.size() - 1; i >= 0; i--) {
+                arraySum += cached.idAt(i) + cached.dayAt(i) + cached.weightAt(i);
+            }
+        }
+        long arrayNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        // the same rows as boxed objects, for comparison with the arrays
+        rt.gc();
+        heapBefore = rt.totalMemory() - rt.freeMemory();
+        List<Object[]> boxed = new ArrayList<>(rows);
+        for (int i = 0; i < cached.size(); i++) {
+            boxed.add(new Object[]{cached.idAt(i), cached.dayAt(i), cached.weightAt(i)});
+        }
+        rt.gc();
+        long boxedBytes = rt.totalMemory() - rt.freeMemory() - heapBefore;
+
+        assertEquals(rows, cached.size());
+        assertEquals(rows, boxed.size());
+        assertEquals(cursorSum, arraySum, Math.abs(cursorSum) * 1e-9);
+        report("iterate cursor (column lookups per row)", rows * passes, cursorNanos);
+        report("load series arrays", rows, loadNanos);
+        report("iterate series arrays", rows * passes, arrayNanos);
+        Log.i(TAG, String.format(Locale.US, "heap for %d rows: arrays ~%d KB, boxed rows ~%d KB " +
+                        "(cursor window is native, refilled on every pass)",
+                rows, seriesBytes / 1024, boxedBytes / 1024));
+        assertTrue("array iteration should beat cursor traversal", arrayNanos < cursorNanos);
+    }
+
+    @Test
+    public void readLatencyDuringWrites_defaultMode() {
+        stressReadsDuringWrites(false);
+    }
+
+    @Test
+    public void readLatencyDuringWrites_concurrentMode() {
+        stressReadsDuringWrites(true);
+    }
+
+    // Writers import history for one user while readers refresh another user's banner and first
+    // page, the same reads TrackerActivity does. Reports reader latency percentiles.
+    private void stressReadsDuringWrites(boolean concurrent) {
+        final int writers = 2;
+        final int readers = 4;
+        final int batches = 20;
+        final int batchRows = 5_000;
+
+        context.deleteDatabase(STRESS_DB);
+        try (DatabaseHelper shared = new DatabaseHelper(context, STRESS_DB, concurrent)) {
+            assertEquals(concurrent, shared.isConcurrent());
+            long writerUser = shared.createUserFull("W", "W", "w@example.com", "writer", "secret1", "Q", "A");
+            long readerUser = shared.createUserFull("R", "R", "r@example.com", "reader", "secret1", "Q", "A");
+            shared.addWeights(readerUser, series(1_000));
+
+            ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+            CountDownLatch writersDone = new CountDownLatch(writers);
+            AtomicBoolean failed = new AtomicBoolean();
+            ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+            Future<?>[] tasks = new Future<?>[writers + readers];
+
+            for (int w = 0; w < writers; w++) {
+                tasks[w] = pool.submit(() -> {
+                    try {
+                        for (int b = 0; b < batches; b++) shared.addWeights(writerUser, series(batchRows), 500);
+                    } finally {
+                        writersDone.countDown();
+                    }
+                });
+            }
+            for (int r = 0; r < readers; r++) {
+                tasks[writers + r] = pool.submit(() -> {
+                    while (writersDone.getCount() > 0 && !failed.get()) {
+                        long start = SystemClock.elapsedRealtimeNanos();
+                        DatabaseHelper.GoalStatus status = shared.getGoalStatus(readerUser);
+                        try (Cursor c = shared.getWeightsPage(readerUser, DatabaseHelper.FIRST_PAGE_DAY,
+                                DatabaseHelper.FIRST_PAGE_ID, 50)) {
+                            if (!status.hasLatest || c.getCount() != 50) failed.set(true);
+                        }
+                        latencies.add(SystemClock.elapsedRealtimeNanos() - start);
+                    }
+                });
+            }
+
+            try {
+                for (Future<?> task : tasks) task.get(10, TimeUnit.MINUTES);
+            } catch (Exception e) {
+                throw new AssertionError("stress run failed", e);
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertFalse("reader saw an inconsistent result", failed.get());
+            try (Cursor c = shared.getAllWeights(writerUser)) {
+                assertEquals(writers * batches * batchRows, c.getCount());
+            }
+            reportLatencies(concurrent ? "reads during writes (WAL)" : "reads during writes (rollback journal)",
+                    latencies);
+        }
+    }
+
+    private static void reportLatencies(String label, ConcurrentLinkedQueue<Long> samples) {
+        long[] sorted = new long[samples.size()];
+        int i = 0;
+        for (long nanos : samples) sorted[i++] = nanos;
+        Arrays.sort(sorted);
+        assertTrue("no reads completed", sorted.length > 0);
+        Log.i(TAG, String.format(Locale.US, "%s x%d: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                label, sorted.length,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.90) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    // rows entries, one per day, generated on demand so 1M rows don't all sit in memory
+    private static List<DatabaseHelper.Entry> series(int rows) {
+        return new AbstractList<DatabaseHelper.Entry>() {
+            @Override
+            public DatabaseHelper.Entry get(int i) {
+                return new DatabaseHelper.Entry(i, 150 + (i % 400) * 0.1);
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        };
+    }
+
+    private static void report(String label, int ops, long nanos) {
+        double seconds = nanos / 1e9;
+        Log.i(TAG, String.format(Locale.US, "%s x%d: %.2f s, %.0f ops/s, %.1f us/op",
+                label, ops, seconds, ops / seconds, nanos / 1e3 / ops));
+    }
+
+    private static boolean largeRunsEnabled() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        return Boolean.parseBoolean(args.getString("largeBenchmarks"));
+    }
+}
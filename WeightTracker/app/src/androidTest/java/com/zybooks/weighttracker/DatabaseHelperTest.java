@@ -0,0 +1,471 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the schema, migrations and query plans in {@link DatabaseHelper}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperTest {
+
+    // Full table scans and sort steps are what the weights index is supposed to remove
+    private static final Pattern SCAN_WEIGHTS = Pattern.compile("\\bSCAN (TABLE )?weights\\b");
+    private static final String TEMP_B_TREE = "USE TEMP B-TREE";
+
+    private static final String UPGRADE_DB = "weighttracker_upgrade_test.db";
+
+    private Context context;
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = new DatabaseHelper(context, null); // in-memory
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(UPGRADE_DB);
+    }
+
+    @Test
+    public void allWeights_isIndexRangeScanWithoutSort() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+        seed(a, b);
+
+        assertIndexOnly(explain(DatabaseHelper.SQL_ALL_WEIGHTS, String.valueOf(a)));
+    }
+
+    @Test
+    public void seriesAll_isIndexRangeScanWithoutSort() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+        seed(a, b);
+
+        assertIndexOnly(explain(DatabaseHelper.SQL_SERIES_ALL, String.valueOf(a)));
+
+        WeightSeries series = db.loadSeries(a);
+        try (Cursor c = db.getAllWeights(a)) {
+            assertEquals(c.getCount(), series.size());
+            // getAllWeights is newest first, the series oldest first
+            for (int i = series.size() - 1; c.moveToNext(); i--) {
+                assertEquals(c.getLong(0), series.idAt(i));
+                assertEquals(c.getInt(1), series.dayAt(i));
+            }
+        }
+        // stats come from the saved row and agree with the rows just read
+        WeightStats want = WeightStats.recompute(weightsOf(series), series.size());
+        assertEquals(want.getCount(), series.getStats().getCount());
+        assertEquals(want.getMean(), series.getStats().getMean(), 1e-9);
+        assertEquals(want.getTotalChange(), series.getStats().getTotalChange(), 1e-9);
+    }
+
+    private static double[] weightsOf(WeightSeries series) {
+        double[] out = new double[series.size()];
+        for (int i = 0; i < out.length; i++) out[i] = series.weightAt(i);
+        return out;
+    }
+
+    @Test
+    public void weightsBetween_isIndexRangeScanWithoutSort() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+        seed(a, b);
+
+        int from = EpochDays.of(2025, 1, 5);
+        int to = EpochDays.of(2025, 1, 9);
+        assertIndexOnly(explain(DatabaseHelper.SQL_WEIGHTS_BETWEEN,
+                String.valueOf(a), String.valueOf(from), String.valueOf(to)));
+
+        try (Cursor c = db.getWeightsBetween(a, from, to)) {
+            assertEquals(5, c.getCount());
+            c.moveToFirst();
+            assertEquals(from, c.getInt(c.getColumnIndexOrThrow("entry_day")));
+        }
+    }
+
+    @Test
+    public void weightsPage_isIndexRangeScanWithoutSort() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+        seed(a, b);
+
+        assertIndexOnly(explain(DatabaseHelper.SQL_WEIGHTS_PAGE, String.valueOf(a),
+                String.valueOf(EpochDays.of(2025, 1, 10)), String.valueOf(EpochDays.of(2025, 1, 10)),
+                "15", "7"));
+    }
+
+    @Test
+    public void weightsPage_walksWholeHistoryInOrderWithoutRepeats() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+        seed(a, b);
+        // same-day duplicates are the tricky case for keyset paging
+        for (int i = 0; i < 5; i++) db.addWeight(a, EpochDays.of(2025, 1, 10), 170 + i);
+
+        List<Long> expected = new ArrayList<>();
+        try (Cursor c = db.getAllWeights(a)) {
+            while (c.moveToNext()) expected.add(c.getLong(0));
+        }
+
+        List<Long> paged = new ArrayList<>();
+        int day = DatabaseHelper.FIRST_PAGE_DAY;
+        long id = DatabaseHelper.FIRST_PAGE_ID;
+        while (true) {
+            try (Cursor c = db.getWeightsPage(a, day, id, 3)) {
+                if (c.getCount() == 0) break;
+                while (c.moveToNext()) {
+                    id = c.getLong(0);
+                    day = c.getInt(1);
+                    paged.add(id);
+                }
+            }
+        }
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void goalStatus_readsOneRowOffTheIndex() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+
+        DatabaseHelper.GoalStatus empty = db.getGoalStatus(a);
+        assertFalse(empty.hasLatest);
+        assertEquals(0, empty.goal, 0);
+
+        seed(a, b);
+        db.setGoalWeight(a, 165);
+        long latest = db.addWeight(a, EpochDays.of(2025, 1, 20), 177.5); // same day as the seeded last row
+
+        assertIndexOnly(explain(DatabaseHelper.SQL_GOAL_STATUS, String.valueOf(a)));
+
+        DatabaseHelper.GoalStatus status = db.getGoalStatus(a);
+        assertEquals(165, status.goal, 0);
+        assertTrue(status.hasLatest);
+        assertEquals(latest, status.latestId);
+        assertEquals(EpochDays.of(2025, 1, 20), status.latestDay);
+        assertEquals(177.5, status.latestWeight, 0);
+    }
+
+    @Test
+    public void rollups_matchRecomputationAfterRandomEdits() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        long b = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Q", "A");
+        Random rnd = new Random(42);
+        int base = EpochDays.of(2024, 12, 1);
+        List<Long> ids = new ArrayList<>();
+
+        for (int op = 0; op < 600; op++) {
+            int choice = rnd.nextInt(10);
+            if (choice < 6 || ids.isEmpty()) {
+                long user = rnd.nextBoolean() ? a : b;
+                ids.add(db.addWeight(user, base + rnd.nextInt(120), 150 + rnd.nextInt(500) / 10.0));
+            } else if (choice < 8) {
+                long id = ids.get(rnd.nextInt(ids.size()));
+                db.updateWeight(id, base + rnd.nextInt(120), 150 + rnd.nextInt(500) / 10.0);
+            } else {
+                db.deleteWeight(ids.remove(rnd.nextInt(ids.size())));
+            }
+        }
+        List<DatabaseHelper.Entry> bulk = new ArrayList<>();
+        for (int i = 0; i < 50; i++) bulk.add(new DatabaseHelper.Entry(base + rnd.nextInt(120), 160 + i));
+        db.addWeights(a, bulk);
+
+        for (long user : new long[]{a, b}) {
+            for (String period : new String[]{DatabaseHelper.PERIOD_DAY, DatabaseHelper.PERIOD_WEEK,
+                    DatabaseHelper.PERIOD_MONTH}) {
+                assertEquals(user + " " + period, expectedRollups(user, period), actualRollups(user, period));
+            }
+        }
+    }
+
+    @Test
+    public void stats_matchRecomputationAfterRandomEdits() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        Random rnd = new Random(7);
+        int base = EpochDays.of(2024, 1, 1);
+        List<Long> ids = new ArrayList<>();
+
+        for (int op = 0; op < 400; op++) {
+            int choice = rnd.nextInt(10);
+            if (choice < 6 || ids.isEmpty()) {
+                ids.add(db.addWeight(a, base + rnd.nextInt(365), 150 + rnd.nextInt(500) / 10.0));
+            } else if (choice < 8) {
+                db.updateWeight(ids.get(rnd.nextInt(ids.size())), base + rnd.nextInt(365),
+                        150 + rnd.nextInt(500) / 10.0);
+            } else {
+                db.deleteWeight(ids.remove(rnd.nextInt(ids.size())));
+            }
+        }
+        List<DatabaseHelper.Entry> bulk = new ArrayList<>();
+        for (int i = 0; i < 120; i++) bulk.add(new DatabaseHelper.Entry(base + rnd.nextInt(365), 160 + i * 0.1));
+        db.addWeights(a, bulk, 50);
+
+        double[] oldestFirst;
+        try (Cursor c = db.getAllWeights(a)) {
+            oldestFirst = new double[c.getCount()];
+            int i = oldestFirst.length;
+            while (c.moveToNext()) oldestFirst[--i] = c.getDouble(2);
+        }
+        WeightStats expected = WeightStats.recompute(oldestFirst, oldestFirst.length);
+        WeightStats actual = db.getStats(a);
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMean(), actual.getMean(), 1e-6);
+        assertEquals(expected.getVariance(), actual.getVariance(), 1e-4);
+        assertEquals(expected.getMin(), actual.getMin(), 0);
+        assertEquals(expected.getMax(), actual.getMax(), 0);
+        assertEquals(expected.getEma(), actual.getEma(), 1e-6);
+        assertEquals(expected.getTotalChange(), actual.getTotalChange(), 1e-6);
+    }
+
+    @Test
+    public void rollups_readsBucketsOffThePrimaryKey() {
+        assertIndexOnlyFor("weight_rollups", explain(WeightRollups.SQL_ROLLUPS,
+                "1", DatabaseHelper.PERIOD_WEEK, "0", "30000"));
+    }
+
+    @Test
+    public void allWeights_ordersByDayNotText() {
+        long a = db.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+        // As text "2025-9-1" sorted after "2025-10-1"; as days it is older
+        db.addWeight(a, EpochDays.parse("2025-9-1"), 181);
+        db.addWeight(a, EpochDays.parse("2025-10-1"), 179);
+
+        try (Cursor c = db.getAllWeights(a)) {
+            c.moveToFirst();
+            assertEquals(EpochDays.of(2025, 10, 1), c.getInt(c.getColumnIndexOrThrow("entry_day")));
+        }
+    }
+
+    @Test
+    public void upgradeFromVersion2_rebuildsWeightsWithEpochDays() {
+        // Build a version 2 file by hand: same tables, no weights index
+        SQLiteDatabase old = context.openOrCreateDatabase(UPGRADE_DB, Context.MODE_PRIVATE, null);
+        old.execSQL("CREATE TABLE users (_id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE, " +
+                "password TEXT, goal_weight REAL DEFAULT 0, email TEXT, first_name TEXT, last_name TEXT, " +
+                "sec_question TEXT, sec_answer_hash TEXT, created_at INTEGER)");
+        old.execSQL("CREATE TABLE weights (_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER, " +
+                "entry_date TEXT, weight_lbs REAL, FOREIGN KEY(user_id) REFERENCES users(_id))");
+        old.execSQL("INSERT INTO weights (_id, user_id, entry_date, weight_lbs) VALUES (7, 1, '2025-01-01', 180)");
+        old.execSQL("INSERT INTO weights (_id, user_id, entry_date, weight_lbs) VALUES (8, 1, '1/6/2025', 179)");
+        old.execSQL("INSERT INTO weights (_id, user_id, entry_date, weight_lbs) VALUES (9, 1, 'last tuesday', 178)");
+        old.setVersion(2);
+        old.close();
+
+        try (DatabaseHelper upgraded = new DatabaseHelper(context, UPGRADE_DB);
+             Cursor c = upgraded.getReadableDatabase().rawQuery(
+                     "SELECT name FROM sqlite_master WHERE type='index' AND tbl_name='weights'", null)) {
+            List<String> names = new ArrayList<>();
+            while (c.moveToNext()) names.add(c.getString(0));
+            assertTrue(names.toString(), names.contains("idx_weights_user_day"));
+            assertFalse(names.toString(), names.contains("idx_weights_user_date"));
+
+            // Readable rows survive the migration with their ids, newest day first
+            try (Cursor rows = upgraded.getAllWeights(1)) {
+                assertEquals(2, rows.getCount());
+                rows.moveToFirst();
+                assertEquals(8, rows.getLong(0));
+                assertEquals(EpochDays.of(2025, 1, 6), rows.getInt(1));
+                rows.moveToNext();
+                assertEquals(7, rows.getLong(0));
+                assertEquals(EpochDays.of(2025, 1, 1), rows.getInt(1));
+            }
+
+            // the unreadable one is kept aside with its text, not given a made-up date
+            assertEquals("9 1 last tuesday 178.0", undated(upgraded));
+
+            // The rollups and stats are backfilled from the migrated rows only
+            try (Cursor days = upgraded.getRollups(1, DatabaseHelper.PERIOD_DAY, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+                assertEquals(2, days.getCount());
+            }
+            assertEquals(2, upgraded.getStats(1).getCount());
+            assertEquals(-1, upgraded.getStats(1).getTotalChange(), 1e-9);
+
+            // and the alert outbox starts out empty
+            try (Cursor alerts = upgraded.getReadableDatabase().rawQuery(
+                    "SELECT COUNT(*) FROM " + SmsOutbox.TABLE_OUTBOX, null)) {
+                alerts.moveToFirst();
+                assertEquals(0, alerts.getInt(0));
+            }
+        }
+    }
+
+    @Test
+    public void upgradeFromVersion2_neverReusesTheIdOfAnUndatedEntry() {
+        // The newest row is the unreadable one, so it holds the highest id
+        SQLiteDatabase old = context.openOrCreateDatabase(UPGRADE_DB, Context.MODE_PRIVATE, null);
+        old.execSQL("CREATE TABLE users (_id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE, " +
+                "password TEXT, goal_weight REAL DEFAULT 0, email TEXT, first_name TEXT, last_name TEXT, " +
+                "sec_question TEXT, sec_answer_hash TEXT, created_at INTEGER)");
+        old.execSQL("CREATE TABLE weights (_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER, " +
+                "entry_date TEXT, weight_lbs REAL, FOREIGN KEY(user_id) REFERENCES users(_id))");
+        old.execSQL("INSERT INTO weights (_id, user_id, entry_date, weight_lbs) VALUES (4, 1, '2025-01-01', 180)");
+        old.execSQL("INSERT INTO weights (_id, user_id, entry_date, weight_lbs) VALUES (5, 1, 'yesterday', 179)");
+        old.setVersion(2);
+        old.close();
+
+        try (DatabaseHelper upgraded = new DatabaseHelper(context, UPGRADE_DB)) {
+            assertEquals("5 1 yesterday 179.0", undated(upgraded));
+            long id = upgraded.addWeight(1, EpochDays.of(2025, 1, 2), 178);
+            assertTrue("reused id " + id, id > 5);
+        }
+    }
+
+    @Test
+    public void upgradeFromVersion8_movesDayZeroEntriesOutOfHistory() {
+        // A version 8 file where the old migration had put an unreadable date on day 0
+        try (DatabaseHelper v8 = new DatabaseHelper(context, UPGRADE_DB)) {
+            long a = v8.createUserFull("A", "A", "a@example.com", "alice", "secret1", "Q", "A");
+            v8.addWeight(a, 0, 200);
+            v8.addWeight(a, EpochDays.of(2025, 1, 1), 180);
+            v8.addWeight(a, EpochDays.of(2025, 1, 2), 179);
+            assertEquals(3, v8.getStats(a).getCount());
+            v8.getWritableDatabase().setVersion(8);
+        }
+
+        try (DatabaseHelper upgraded = new DatabaseHelper(context, UPGRADE_DB)) {
+            WeightSeries series = upgraded.loadSeries(1);
+            assertEquals(2, series.size());
+            assertEquals(EpochDays.of(2025, 1, 1), series.dayAt(0));
+
+            WeightStats stats = upgraded.getStats(1);
+            assertEquals(2, stats.getCount());
+            assertEquals(179, stats.getMin(), 1e-9);
+            assertEquals(180, stats.getMax(), 1e-9);
+            assertEquals(-1, stats.getTotalChange(), 1e-9);
+            try (Cursor days = upgraded.getRollups(1, DatabaseHelper.PERIOD_DAY, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+                assertEquals(2, days.getCount());
+            }
+
+            // the text was already gone, but the weight is kept
+            assertEquals("1 1 null 200.0", undated(upgraded));
+        }
+    }
+
+    // Every row set aside for an unreadable date: "id user text weight", one per line
+    private static String undated(DatabaseHelper helper) {
+        StringBuilder sb = new StringBuilder();
+        try (Cursor c = helper.getReadableDatabase().rawQuery("SELECT _id, user_id, entry_date, weight_lbs FROM " +
+                DatabaseHelper.TABLE_UNDATED + " ORDER BY _id", null)) {
+            while (c.moveToNext()) {
+                if (sb.length() > 0) sb.append('\n');
+                sb.append(c.getLong(0)).append(' ').append(c.getLong(1)).append(' ')
+                        .append(c.getString(2)).append(' ').append(c.getDouble(3));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Rollups recomputed in Java from the raw rows: bucket start -> "count sum min max last"
+    private Map<Integer, String> expectedRollups(long user, String period) {
+        Map<Integer, double[]> buckets = new HashMap<>();
+        try (Cursor c = db.getAllWeights(user)) {
+            // newest first, so the first row seen in a bucket is its last value
+            while (c.moveToNext()) {
+                int day = c.getInt(1);
+                double w = c.getDouble(2);
+                double[] agg = buckets.get(bucketStart(period, day));
+                if (agg == null) {
+                    buckets.put(bucketStart(period, day), new double[]{1, w, w, w, w});
+                } else {
+                    agg[0]++;
+                    agg[1] += w;
+                    agg[2] = Math.min(agg[2], w);
+                    agg[3] = Math.max(agg[3], w);
+                }
+            }
+        }
+        Map<Integer, String> out = new HashMap<>();
+        for (Map.Entry<Integer, double[]> e : buckets.entrySet()) {
+            double[] v = e.getValue();
+            out.put(e.getKey(), describe((int) v[0], v[1], v[2], v[3], v[4]));
+        }
+        return out;
+    }
+
+    private Map<Integer, String> actualRollups(long user, String period) {
+        Map<Integer, String> out = new HashMap<>();
+        try (Cursor c = db.getRollups(user, period, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            while (c.moveToNext()) {
+                out.put(c.getInt(0), describe(c.getInt(2), c.getDouble(3), c.getDouble(4),
+                        c.getDouble(5), c.getDouble(6)));
+            }
+        }
+        return out;
+    }
+
+    private static String describe(int count, double sum, double min, double max, double last) {
+        return String.format(Locale.US, "%d %.4f %.1f %.1f %.1f", count, sum, min, max, last);
+    }
+
+    private static int bucketStart(String period, int day) {
+        switch (period) {
+            case DatabaseHelper.PERIOD_WEEK:
+                return day - Math.floorMod(day + 3, 7); // Monday
+            case DatabaseHelper.PERIOD_MONTH:
+                String ymd = EpochDays.format(day);
+                return EpochDays.of(Integer.parseInt(ymd.substring(0, 4)), Integer.parseInt(ymd.substring(5, 7)), 1);
+            default:
+                return day;
+        }
+    }
+
+    // Twenty days of entries for two users
+    private void seed(long a, long b) {
+        for (int i = 1; i <= 20; i++) {
+            db.addWeight(a, EpochDays.of(2025, 1, i), 180 - i * 0.1);
+            db.addWeight(b, EpochDays.of(2025, 2, i), 200 - i * 0.1);
+        }
+    }
+
+    // Runs EXPLAIN QUERY PLAN and returns the "detail" line of every step
+    private List<String> explain(String sql, String... args) {
+        List<String> steps = new ArrayList<>();
+        try (Cursor c = db.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) steps.add(c.getString(detail));
+        }
+        return steps;
+    }
+
+    // Like assertIndexOnly, for tables other than weights
+    private static void assertIndexOnlyFor(String table, List<String> plan) {
+        assertFalse("empty plan", plan.isEmpty());
+        Pattern scan = Pattern.compile("\\bSCAN (TABLE )?" + table + "\\b");
+        for (String step : plan) {
+            assertFalse("full scan: " + plan, scan.matcher(step).find());
+            assertFalse("sort step: " + plan, step.contains(TEMP_B_TREE));
+        }
+    }
+
+    private static void assertIndexOnly(List<String> plan) {
+        assertFalse("empty plan", plan.isEmpty());
+        for (String step : plan) {
+            assertFalse("full scan: " + plan, SCAN_WEIGHTS.matcher(step).find());
+            assertFalse("sort step: " + plan, step.contains(TEMP_B_TREE));
+        }
+        assertTrue("no index used: " + plan, plan.toString().contains("INDEX"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.zybooks.weighttracker;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * On-device cost of {@link PasswordHasher} at a range of iteration counts, plus what calibration
+ * picks on this device. Results go to logcat under the "PasswordHasherBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PasswordHasherBenchmark {
+
+    private static final String TAG = "PasswordHasherBenchmark";
+    private static final int[] ITERATIONS = {10_000, 50_000, 100_000, 250_000, 500_000};
+    private static final int RUNS = 7;
+
+    @Test
+    public void hashCost_perIterationCount() {
+        for (int n : ITERATIONS) {
+            PasswordHasher hasher = new PasswordHasher(n);
+            String stored = hasher.hash("warm-up secret");
+            long[] runs = new long[RUNS];
+            for (int r = 0; r < RUNS; r++) {
+                long start = SystemClock.elapsedRealtimeNanos();
+                assertTrue(hasher.verify("warm-up secret", stored));
+                runs[r] = SystemClock.elapsedRealtimeNanos() - start;
+            }
+            Arrays.sort(runs);
+            double median = runs[RUNS / 2] / 1e6;
+            Log.i(TAG, String.format(Locale.US, "%,d iterations: median %.1f ms (min %.1f, max %.1f), %.2f us/iteration",
+                    n, median, runs[0] / 1e6, runs[RUNS - 1] / 1e6, median * 1e3 / n));
+        }
+    }
+
+    @Test
+    public void calibration_landsNearTarget() {
+        long start = SystemClock.elapsedRealtimeNanos();
+        int n = PasswordHasher.calibrate(100);
+        long calibrateNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        PasswordHasher hasher = new PasswordHasher(n);
+        String stored = hasher.hash("secret1");
+        start = SystemClock.elapsedRealtimeNanos();
+        assertTrue(hasher.verify("secret1", stored));
+        long verifyNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        Log.i(TAG, String.format(Locale.US, "calibrated to %,d iterations in %.1f ms; one check takes %.1f ms (target 100)",
+                n, calibrateNanos / 1e6, verifyNanos / 1e6));
+        assertTrue(n >= PasswordHasher.MIN_ITERATIONS && n <= PasswordHasher.MAX_ITERATIONS);
+    }
+}
@@ -0,0 +1,132 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented guard for the query plans behind the login, registration and recovery dialogs and
+ * {@link TrackerActivity}. Runs the same repository calls those screens make with the slow-query
+ * threshold at 0, so every read lands in {@link Metrics#slowQueries()} with its plan, then fails
+ * if any of them scans weights or sorts through a temp B-tree (what losing an index looks like).
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanGuardTest {
+
+    // weights is aliased as w in SQL_GOAL_STATUS, so a scan under that name counts too
+    private static final Pattern SCAN_WEIGHTS = Pattern.compile("\\bSCAN (TABLE )?(weights|w)\\b");
+    private static final String TEMP_B_TREE = "USE TEMP B-TREE";
+
+    private static final int USERS = 5;
+    private static final int ENTRIES = 400;
+
+    private DatabaseHelper db;
+    private WeightRepository repo;
+    private SlowQueryLog log;
+    private long savedThreshold;
+    private long userId;
+    private String username;
+    private int checked; // queries looked at so far in this test
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = new DatabaseHelper(context, null); // in-memory
+        repo = new WeightRepository(db, new SmsSender() {
+            @Override public boolean canSend() { return false; }
+
+            @Override public void send(long alertId, String phone, String body) { }
+        }, new PasswordHasher(PasswordHasher.MIN_ITERATIONS));
+        userId = SyntheticData.generate(db, 42, USERS, ENTRIES)[2];
+        username = SyntheticData.username(2);
+
+        log = Metrics.slowQueries();
+        savedThreshold = log.getThresholdNanos();
+        log.setThresholdNanos(0);
+        log.clear();
+    }
+
+    @After
+    public void tearDown() {
+        log.setThresholdNanos(savedThreshold);
+        log.clear();
+        repo.close();
+        assertTrue("no queries were recorded", checked > 0);
+    }
+
+    @Test
+    public void login_usesIndexes() {
+        assertEquals(userId, repo.authenticate(username, SyntheticData.PASSWORD));
+        assertNoScansOrSorts();
+        assertEquals(-1, repo.authenticate("nobody", SyntheticData.PASSWORD));
+        assertNoScansOrSorts();
+
+        // Session: saved id check and the cached profile
+        assertTrue(repo.userIdExists(userId));
+        assertNotNull(db.getProfile(userId));
+        assertNoScansOrSorts();
+    }
+
+    @Test
+    public void register_usesIndexes() {
+        assertTrue(repo.usernameExists(username));
+        assertFalse(repo.emailExists("new@example.com"));
+        assertNoScansOrSorts();
+    }
+
+    @Test
+    public void recovery_usesIndexes() {
+        String email = username + "@example.com";
+        assertEquals(username, repo.getUsernameByEmail(email)); // forgot username
+        assertNoScansOrSorts();
+
+        assertEquals(SyntheticData.SECURITY_QUESTION, repo.getSecurityQuestion(username)); // forgot password
+        assertTrue(repo.checkSecurityAnswer(username, SyntheticData.SECURITY_ANSWER));
+        assertTrue(repo.updatePassword(username, "secret2"));
+        assertNoScansOrSorts();
+    }
+
+    @Test
+    public void tracker_usesIndexes() {
+        WeightSeries series = db.loadSeries(userId);
+        assertEquals(ENTRIES, series.size());
+        assertNoScansOrSorts();
+
+        int day = SyntheticData.START_DAY + 4 * ENTRIES;
+        long id = repo.addWeight(userId, day, 180);
+        assertTrue(id > 0);
+        assertNoScansOrSorts();
+        assertEquals(1, repo.updateWeight(userId, id, day, 181));
+        assertNoScansOrSorts();
+        assertEquals(1, repo.deleteWeight(userId, id));
+        assertNoScansOrSorts();
+        repo.setGoalWeight(userId, 170);
+        assertNoScansOrSorts();
+    }
+
+    // Checks every query recorded since the last call, then starts over
+    private void assertNoScansOrSorts() {
+        List<SlowQueryLog.Entry> entries = log.entries();
+        assertEquals("log overflowed, check more often", log.getRecorded(), entries.size());
+        for (SlowQueryLog.Entry e : entries) {
+            assertFalse("no plan: " + e, e.plan.isEmpty() || e.plan.startsWith("(no plan"));
+            for (String step : e.plan.split("\n")) {
+                assertFalse("full scan: " + e, SCAN_WEIGHTS.matcher(step).find());
+                assertFalse("sort step: " + e, step.contains(TEMP_B_TREE));
+            }
+        }
+        checked += entries.size();
+        log.clear();
+    }
+}
@@ -0,0 +1,208 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for {@link SmsOutbox} with a fake sender and a hand-driven clock: dedupe,
+ * backoff, report handling, timeouts and giving up.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SmsOutboxTest {
+
+    private static final String PHONE = "5551234567";
+
+    // Records sends; a test reports the outcome itself through the outbox's record methods
+    private static class FakeSender implements SmsSender {
+        boolean allowed = true;
+        boolean throwOnSend;
+        final List<Long> sent = new ArrayList<>();
+
+        @Override
+        public boolean canSend() {
+            return allowed;
+        }
+
+        @Override
+        public void send(long alertId, String phone, String body) {
+            sent.add(alertId);
+            if (throwOnSend) throw new IllegalStateException("radio off");
+        }
+    }
+
+    private DatabaseHelper db;
+    private FakeSender sender;
+    private SmsOutbox outbox;
+    private long now = 1_000_000;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = new DatabaseHelper(context, null); // in-memory
+        sender = new FakeSender();
+        outbox = new SmsOutbox(db, sender, () -> now); // never started: the test drives it
+    }
+
+    @After
+    public void tearDown() {
+        outbox.shutdown();
+        db.close();
+    }
+
+    @Test
+    public void sameKey_isQueuedAndSentOnce() {
+        assertTrue(outbox.enqueue(1, "goal-reached:1:150.0:7", PHONE, "Goal reached!"));
+        assertFalse(outbox.enqueue(1, "goal-reached:1:150.0:7", PHONE, "Goal reached!"));
+        assertTrue(outbox.enqueue(1, "goal-reached:1:150.0:9", PHONE, "Goal reached!"));
+
+        outbox.drain();
+        outbox.drain();
+
+        assertEquals(2, sender.sent.size());
+    }
+
+    @Test
+    public void failedSend_isRetriedWithDoublingBackoff() {
+        outbox.enqueue(1, "k", PHONE, "Goal reached!");
+        outbox.drain();
+        long id = sender.sent.get(0);
+
+        outbox.recordSendResult(id, false, "send error 1");
+        assertEquals(SmsOutbox.STATE_PENDING, state(id));
+        assertEquals(now + SmsOutbox.BASE_BACKOFF_MS, nextAttemptAt(id));
+
+        now += SmsOutbox.BASE_BACKOFF_MS - 1;
+        outbox.drain();
+        assertEquals(1, sender.sent.size()); // not due yet
+
+        now += 1;
+        outbox.drain();
+        assertEquals(2, sender.sent.size());
+
+        outbox.recordSendResult(id, false, "send error 1");
+        assertEquals(now + 2 * SmsOutbox.BASE_BACKOFF_MS, nextAttemptAt(id));
+        assertEquals(2, attempts(id));
+    }
+
+    @Test
+    public void sentThenDelivered_isNotSentAgain() {
+        outbox.enqueue(1, "k", PHONE, "Goal reached!");
+        outbox.drain();
+        long id = sender.sent.get(0);
+
+        outbox.recordSendResult(id, true, null);
+        assertEquals(SmsOutbox.STATE_SENT, state(id));
+        outbox.recordDeliveryResult(id, true, null);
+        assertEquals(SmsOutbox.STATE_DELIVERED, state(id));
+
+        now += SmsOutbox.SEND_TIMEOUT_MS + SmsOutbox.MAX_BACKOFF_MS;
+        outbox.drain();
+        assertEquals(1, sender.sent.size());
+    }
+
+    @Test
+    public void throwingSender_givesUpAfterMaxAttempts() {
+        sender.throwOnSend = true;
+        outbox.enqueue(1, "k", PHONE, "Goal reached!");
+
+        for (int i = 0; i < SmsOutbox.MAX_ATTEMPTS + 3; i++) {
+            outbox.drain();
+            now += SmsOutbox.MAX_BACKOFF_MS;
+        }
+
+        long id = sender.sent.get(0);
+        assertEquals(SmsOutbox.MAX_ATTEMPTS, sender.sent.size());
+        assertEquals(SmsOutbox.STATE_FAILED, state(id));
+        assertEquals(SmsOutbox.MAX_ATTEMPTS, attempts(id));
+    }
+
+    @Test
+    public void withoutPermission_alertWaitsWithoutUsingAttempts() {
+        sender.allowed = false;
+        outbox.enqueue(1, "k", PHONE, "Goal reached!");
+
+        outbox.drain();
+        now += SmsOutbox.MAX_BACKOFF_MS;
+        outbox.drain();
+        assertTrue(sender.sent.isEmpty());
+
+        sender.allowed = true;
+        outbox.drain();
+        assertEquals(1, sender.sent.size());
+        assertEquals(1, attempts(sender.sent.get(0)));
+    }
+
+    @Test
+    public void sendWithNoReport_timesOutAndIgnoresTheLateReport() {
+        outbox.enqueue(1, "k", PHONE, "Goal reached!");
+        outbox.drain();
+        long id = sender.sent.get(0);
+        assertEquals(SmsOutbox.STATE_SENDING, state(id));
+
+        now += SmsOutbox.SEND_TIMEOUT_MS;
+        outbox.drain();
+        assertEquals(SmsOutbox.STATE_PENDING, state(id));
+
+        outbox.recordSendResult(id, true, null); // too late: the retry owns it now
+        assertEquals(SmsOutbox.STATE_PENDING, state(id));
+
+        now += SmsOutbox.BASE_BACKOFF_MS;
+        outbox.drain();
+        assertEquals(2, sender.sent.size());
+    }
+
+    @Test
+    public void moreDueThanOneCursorWindow_areAllSentOnce() {
+        // about 3 MB of due rows, more than a 2 MB CursorWindow holds
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 1_000) body.append("Goal reached! ");
+        int alerts = 3_000;
+        for (int i = 0; i < alerts; i++) outbox.enqueue(1, "k" + i, PHONE, body.toString());
+
+        outbox.drain();
+
+        assertEquals(alerts, sender.sent.size());
+        assertEquals(alerts, new HashSet<>(sender.sent).size());
+    }
+
+    @Test
+    public void backoff_isCapped() {
+        assertEquals(SmsOutbox.BASE_BACKOFF_MS, SmsOutbox.backoff(1));
+        assertEquals(4 * SmsOutbox.BASE_BACKOFF_MS, SmsOutbox.backoff(3));
+        assertEquals(SmsOutbox.MAX_BACKOFF_MS, SmsOutbox.backoff(40));
+    }
+
+    private int state(long id) {
+        return (int) column(id, SmsOutbox.COL_STATE);
+    }
+
+    private int attempts(long id) {
+        return (int) column(id, SmsOutbox.COL_ATTEMPTS);
+    }
+
+    private long nextAttemptAt(long id) {
+        return column(id, SmsOutbox.COL_NEXT_AT);
+    }
+
+    private long column(long id, String column) {
+        try (Cursor c = db.getReadableDatabase().rawQuery("SELECT " + column + " FROM " +
+                SmsOutbox.TABLE_OUTBOX + " WHERE " + SmsOutbox.COL_ID + "=?", new String[]{String.valueOf(id)})) {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        }
+    }
+}
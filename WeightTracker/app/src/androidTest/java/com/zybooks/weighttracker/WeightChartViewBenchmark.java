@@ -0,0 +1,88 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frame times for {@link WeightChartView} drawing a 20,000-entry history while it is panned and
+ * zoomed. Results go to logcat under the "WeightChartViewBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WeightChartViewBenchmark {
+
+    private static final String TAG = "WeightChartViewBenchmark";
+    private static final int ENTRIES = 20_000;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 420;
+    private static final int FRAMES = 600;
+
+    @Test
+    public void drawWhilePanningAndZooming_20k() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            WeightChartView chart = new WeightChartView(context);
+            chart.setSeries(series(ENTRIES));
+            chart.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            chart.layout(0, 0, WIDTH, HEIGHT);
+            Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+            // first frame of the whole history (fills the top levels of the cache)
+            long start = SystemClock.elapsedRealtimeNanos();
+            chart.draw(canvas);
+            long firstFrame = SystemClock.elapsedRealtimeNanos() - start;
+            assertTrue(chart.getLastPointCount() <= 2 * WIDTH + 3);
+
+            long[] frames = new long[FRAMES];
+            int maxPoints = 0;
+            for (int f = 0; f < FRAMES; f++) {
+                // zoom in for a while, then pan back and forth, then zoom out again
+                if (f < FRAMES / 4) chart.zoomBy(1.02f, WIDTH / 2f);
+                else if (f < FRAMES * 3 / 4) chart.panBy((f / 50) % 2 == 0 ? -25 : 25);
+                else chart.zoomBy(1 / 1.02f, WIDTH / 2f);
+
+                start = SystemClock.elapsedRealtimeNanos();
+                chart.draw(canvas);
+                frames[f] = SystemClock.elapsedRealtimeNanos() - start;
+                maxPoints = Math.max(maxPoints, chart.getLastPointCount());
+            }
+
+            Arrays.sort(frames);
+            Log.i(TAG, String.format(Locale.US,
+                    "%d entries at %dpx: first frame %.2f ms; then p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, " +
+                            "max %.2f ms; at most %d points drawn",
+                    ENTRIES, WIDTH, firstFrame / 1e6, frames[FRAMES / 2] / 1e6, frames[FRAMES * 9 / 10] / 1e6,
+                    frames[FRAMES * 99 / 100] / 1e6, frames[FRAMES - 1] / 1e6, maxPoints));
+            assertTrue("more points than the width allows: " + maxPoints, maxPoints <= 2 * WIDTH + 3);
+            chart.setSeries(null);
+        });
+    }
+
+    // One entry a day with a slow downward trend and a weekly wobble
+    private static WeightSeries series(int n) {
+        long[] ids = new long[n];
+        int[] days = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+            days[i] = 10_000 + i;
+            weights[i] = 220 - i * 0.003 + 1.5 * Math.sin(i * 2 * Math.PI / 7);
+        }
+        return new WeightSeries(1, ids, days, weights, n);
+    }
+}
@@ -0,0 +1,148 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the account side of {@link WeightRepository}: what gets stored, how
+ * accounts saved as plain text are upgraded on login, and the cached profile.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WeightRepositoryTest {
+
+    // Never sends anything; these tests don't reach the outbox
+    private static final SmsSender NO_SMS = new SmsSender() {
+        @Override public boolean canSend() { return false; }
+
+        @Override public void send(long alertId, String phone, String body) { }
+    };
+
+    // Stays resumed for the whole test so submitted work always delivers
+    private static class Owner implements LifecycleOwner {
+        final LifecycleRegistry registry = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+
+    private DatabaseHelper db;
+    private WeightRepository repo;
+    private Owner owner;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = new DatabaseHelper(context, null); // in-memory
+        repo = new WeightRepository(db, NO_SMS, new PasswordHasher(PasswordHasher.MIN_ITERATIONS));
+        owner = new Owner();
+        onMain(() -> owner.registry.setCurrentState(Lifecycle.State.RESUMED));
+    }
+
+    @After
+    public void tearDown() {
+        repo.close();
+    }
+
+    @Test
+    public void createUser_storesHashesOnly() {
+        long id = repo.createUser("A", "A", "a@example.com", "alice", "secret1", "Color?", " Blue ");
+
+        assertTrue(id > 0);
+        assertTrue(PasswordHasher.isHash(db.getPasswordHash("alice")));
+        assertTrue(PasswordHasher.isHash(db.getSecurityAnswer("alice")));
+        assertEquals(id, repo.authenticate("alice", "secret1"));
+        assertEquals(-1, repo.authenticate("alice", "secret2"));
+        assertEquals(-1, repo.authenticate("nobody", "secret1"));
+        assertTrue(repo.checkSecurityAnswer("alice", "BLUE"));
+        assertFalse(repo.checkSecurityAnswer("alice", "red"));
+    }
+
+    @Test
+    public void plainTextAccount_isHashedOnNextLogin() {
+        // an account saved before hashing
+        long id = db.createUserFull("B", "B", "b@example.com", "bob", "secret1", "Color?", "Green");
+
+        assertTrue(repo.checkSecurityAnswer("bob", "green"));
+        assertEquals(-1, repo.authenticate("bob", "wrong1"));
+        assertEquals("secret1", db.getPasswordHash("bob")); // a failed login changes nothing
+
+        assertEquals(id, repo.authenticate("bob", "secret1"));
+        assertTrue(PasswordHasher.isHash(db.getPasswordHash("bob")));
+        assertTrue(PasswordHasher.isHash(db.getSecurityAnswer("bob")));
+        assertEquals(id, repo.authenticate("bob", "secret1"));
+        assertTrue(repo.checkSecurityAnswer("bob", " GREEN"));
+    }
+
+    @Test
+    public void updatePassword_replacesTheHash() {
+        repo.createUser("C", "C", "c@example.com", "carol", "secret1", "Color?", "red");
+
+        assertTrue(repo.updatePassword("carol", "secret2"));
+        assertEquals(-1, repo.authenticate("carol", "secret1"));
+        assertTrue(repo.authenticate("carol", "secret2") > 0);
+        assertTrue(PasswordHasher.isHash(db.getPasswordHash("carol")));
+    }
+
+    @Test
+    public void profile_isLoadedOnceThenServedFromMemory() throws Exception {
+        long id = repo.createUser("Dana", "D", "d@example.com", "dana", "secret1", "Color?", "red");
+
+        UserProfile first = loadProfile(id);
+        assertEquals("dana", first.username);
+        assertEquals("Dana", first.firstName);
+        assertTrue(first.createdAt > 0);
+
+        // with the row gone, only the cache can answer
+        db.getWritableDatabase().delete("users", "_id=?", new String[]{String.valueOf(id)});
+        assertSame(first, loadProfile(id));
+
+        // until it's dropped: then the missing user is noticed
+        onMain(repo::clearUserCaches);
+        assertNull(loadProfile(id));
+    }
+
+    @Test
+    public void setGoalWeight_writesThroughToTheCachedProfile() throws Exception {
+        long id = repo.createUser("Eli", "E", "e@example.com", "eli", "secret1", "Color?", "red");
+        assertEquals(0, loadProfile(id).goal, 0);
+
+        repo.setGoalWeight(id, 150);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync(); // the cache update is posted
+
+        db.getWritableDatabase().delete("users", "_id=?", new String[]{String.valueOf(id)});
+        assertEquals(150, loadProfile(id).goal, 0);
+    }
+
+    // Loads through the repository on the main thread and waits for the result
+    private UserProfile loadProfile(long userId) throws InterruptedException {
+        BlockingQueue<Object[]> result = new ArrayBlockingQueue<>(1);
+        onMain(() -> repo.loadProfile(owner, userId, p -> result.add(new Object[]{p})));
+        Object[] got = result.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no result", got);
+        return (UserProfile) got[0];
+    }
+
+    private static void onMain(Runnable r) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(r);
+    }
+}
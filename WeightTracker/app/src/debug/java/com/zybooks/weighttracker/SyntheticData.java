@@ -0,0 +1,118 @@
+package com.zybooks.weighttracker;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Seeded fake users and weight histories for load tests, benchmarks and migration tests.
+// The same seed and sizes always give the same users, days and weights, so everything that
+// uses it runs against the same fixtures (only password salts differ between runs).
+//
+// Histories look like real ones: a starting weight, a slow trend that changes now and then,
+// day-to-day noise, skipped days and stretches away from the app, and the odd second weigh-in
+// on the same day. Rows go in through createUserFull and the bulk addWeights path, in batched
+// transactions, so the saved stats match what the app itself would have written.
+//
+// Lives in the debug source set (next to SyntheticDataActivity), so release builds ship neither it
+// nor its fixed credentials. Debug unit tests (src/testDebug) and instrumented tests still see it.
+final class SyntheticData {
+
+    // Every generated account logs in with this
+    static final String PASSWORD = "secret1";
+    static final String SECURITY_QUESTION = "Favorite color?";
+    static final String SECURITY_ANSWER = "blue";
+
+    // First entry day for every user (fixed, not today, so runs on different days match)
+    static final int START_DAY = EpochDays.of(2020, 1, 1);
+
+    private static final double GAP_CHANCE = 0.08;       // chance a day is skipped
+    private static final double BREAK_CHANCE = 0.005;    // chance of a 1-4 week break
+    private static final double DUPLICATE_CHANCE = 0.03; // chance of a second entry the same day
+    private static final double TREND_CHANGE_CHANCE = 0.02;
+    private static final double NOISE_LBS = 0.8;          // day-to-day standard deviation
+    private static final int USERS_PER_TRANSACTION = 200;
+
+    private SyntheticData() { }
+
+    // Username for the index-th generated user (0-based)
+    static String username(int index) {
+        return String.format(Locale.US, "user%05d", index);
+    }
+
+    // Creates that many users with entriesPerUser weights each and returns their ids in order.
+    // Most users get a goal somewhere below their starting weight; about one in five has none.
+    static long[] generate(DatabaseHelper db, long seed, int users, int entriesPerUser) {
+        // one cheap hash shared by everyone: hashing per user would dominate the run time
+        PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_ITERATIONS);
+        String passwordHash = hasher.hash(PASSWORD);
+        String answerHash = hasher.hash(PasswordHasher.normalizeAnswer(SECURITY_ANSWER));
+
+        Random rnd = new Random(seed);
+        long[] ids = new long[users];
+        double[] starts = new double[users];
+        SQLiteDatabase raw = db.getWritableDatabase();
+        for (int from = 0; from < users; from += USERS_PER_TRANSACTION) {
+            int to = Math.min(users, from + USERS_PER_TRANSACTION);
+            raw.beginTransaction();
+            try {
+                for (int u = from; u < to; u++) {
+                    String name = username(u);
+                    ids[u] = db.createUserFull("Test", "User " + u, name + "@example.com", name,
+                            passwordHash, SECURITY_QUESTION, answerHash);
+                    if (ids[u] == -1) throw new IllegalStateException("couldn't create " + name);
+                    starts[u] = 140 + rnd.nextInt(1200) / 10.0;
+                    if (rnd.nextInt(5) != 0) db.setGoalWeight(ids[u], Math.round(starts[u] - 10 - rnd.nextInt(40)));
+                }
+                raw.setTransactionSuccessful();
+            } finally {
+                raw.endTransaction();
+            }
+        }
+        for (int u = 0; u < users; u++) {
+            // each user's history has its own stream, so changing the user count keeps earlier users the same
+            db.addWeights(ids[u], history(new Random(seed * 1_000_003L + u), starts[u], entriesPerUser));
+        }
+        return ids;
+    }
+
+    // One user's history: entries weights from START_DAY on, oldest first
+    static List<DatabaseHelper.Entry> history(Random rnd, double start, int entries) {
+        DatabaseHelper.Entry[] out = new DatabaseHelper.Entry[entries];
+        int day = START_DAY;
+        double weight = start;
+        double floor = start * 0.75; // nobody keeps losing forever
+        double trend = nextTrend(rnd, false);
+        for (int i = 0; i < entries; i++) {
+            if (i > 0 && rnd.nextDouble() < DUPLICATE_CHANCE) {
+                // a second weigh-in later the same day: close to the first
+                out[i] = new DatabaseHelper.Entry(day, round(out[i - 1].weight + rnd.nextGaussian() * 0.4));
+                continue;
+            }
+            if (i > 0) {
+                day++;
+                while (rnd.nextDouble() < GAP_CHANCE) day++;
+                if (rnd.nextDouble() < BREAK_CHANCE) day += 7 + rnd.nextInt(22);
+            }
+            boolean low = weight < floor;
+            if (rnd.nextDouble() < TREND_CHANGE_CHANCE || (low && trend < 0)) trend = nextTrend(rnd, low);
+            weight += trend;
+            out[i] = new DatabaseHelper.Entry(day, round(weight + rnd.nextGaussian() * NOISE_LBS));
+        }
+        return Arrays.asList(out);
+    }
+
+    // Pounds per day: mostly losing, sometimes holding or gaining (never losing once low)
+    private static double nextTrend(Random rnd, boolean low) {
+        int kind = low ? 6 + rnd.nextInt(4) : rnd.nextInt(10);
+        if (kind < 6) return -0.02 - rnd.nextDouble() * 0.08;
+        if (kind < 9) return (rnd.nextDouble() - 0.5) * 0.02;
+        return 0.02 + rnd.nextDouble() * 0.08;
+    }
+
+    private static double round(double lbs) {
+        return Math.round(lbs * 10) / 10.0;
+    }
+}
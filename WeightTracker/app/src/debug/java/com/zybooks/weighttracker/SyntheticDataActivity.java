@@ -0,0 +1,71 @@
+package com.zybooks.weighttracker;
+
+import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.util.Locale;
+
+// Debug builds only: fills the app's weighttracker.db with SyntheticData so manual scroll tests and
+// on-device profiling use the same fixtures as the automated tests. Started from adb, e.g.
+//
+//   adb shell am start -n com.zybooks.weighttracker/.SyntheticDataActivity \
+//       --ei users 500 --ei entries 2000 --el seed 42 --ez reset true
+//
+// reset deletes the current database first (needed to run it twice, since usernames repeat).
+// When it's done the process exits, so the next launch opens the new data with empty caches.
+public class SyntheticDataActivity extends AppCompatActivity {
+
+    private static final String TAG = "SyntheticData";
+    private static final String DB_NAME = "weighttracker.db";
+
+    private TextView status;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        status = new TextView(this);
+        int pad = (int) (16 * getResources().getDisplayMetrics().density);
+        status.setPadding(pad, pad, pad, pad);
+        setContentView(status);
+        if (savedInstanceState != null) return; // already running (or done) from the first create
+
+        int users = getIntent().getIntExtra("users", 100);
+        int entries = getIntent().getIntExtra("entries", 1_000);
+        long seed = getIntent().getLongExtra("seed", 42);
+        boolean reset = getIntent().getBooleanExtra("reset", false);
+        String what = String.format(Locale.US, "%d users x %d entries, seed %d", users, entries, seed);
+        status.setText("Generating " + what + "…");
+
+        WeightTrackerApp app = (WeightTrackerApp) getApplication();
+        if (reset) {
+            // the saved login would point at whoever gets that id in the new data
+            app.getSession().logOut();
+            app.getRepository().close();
+        }
+        new Thread(() -> {
+            long start = SystemClock.elapsedRealtime();
+            String result;
+            try {
+                if (reset) deleteDatabase(DB_NAME);
+                try (DatabaseHelper db = new DatabaseHelper(this, true)) {
+                    SyntheticData.generate(db, seed, users, entries);
+                }
+                result = String.format(Locale.US, "Generated %s in %.1f s. Exiting…",
+                        what, (SystemClock.elapsedRealtime() - start) / 1000.0);
+                Log.i(TAG, result);
+            } catch (RuntimeException e) {
+                result = "Failed: " + e.getMessage();
+                Log.e(TAG, "Generating " + what + " failed", e);
+            }
+            String shown = result;
+            runOnUiThread(() -> status.setText(shown));
+            SystemClock.sleep(1_500);
+            Process.killProcess(Process.myPid());
+        }, "synthetic-data").start();
+    }
+}
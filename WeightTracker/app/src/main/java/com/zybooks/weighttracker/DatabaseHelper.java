@@ -3,43 +3,239 @@ package com.zybooks.weighttracker;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 // Handles everything related to the local SQLite database for the Weight Tracker app.
 // Stores user accounts, their goals, and weight entries.
+//
+// Threading: one helper can be shared by any number of threads. SQLiteDatabase serializes
+// writers itself and every method here is a self-contained call, so no extra locking is needed.
+// In the default mode a write (for example a large addWeights import) blocks readers until it
+// commits. In concurrent mode the database uses write-ahead logging, so readers keep getting
+// the last committed data while one writer is busy; writers still run one at a time.
+//
+// Every read goes through query/queryLong/queryString, which put anything slower than the
+// threshold in Metrics.slowQueries() along with its query plan.
 @SuppressWarnings("SpellCheckingInspection")
-public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable {
+public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable, GoalEvaluator.Store {
+
+    private static final String TAG = "DatabaseHelper";
 
     // Database name and version
     private static final String DB_NAME = "weighttracker.db";
-    private static final int DB_VERSION = 2; // version 2 includes new user info columns
+    // version 2 includes new user info columns, version 3 adds the per-user weights index,
+    // version 4 stores entry dates as integer epoch days, version 5 adds trigger-kept rollups,
+    // version 6 adds saved per-user statistics, version 7 adds the SMS alert outbox,
+    // version 8 saves each user's goal state, version 9 moves entries with unreadable old dates
+    // out of weights (see TABLE_UNDATED)
+    private static final int DB_VERSION = 9;
 
     // Users table
     private static final String TABLE_USERS    = "users";
     private static final String COL_USER_ID    = "_id";
     private static final String COL_USERNAME   = "username";
-    private static final String COL_PASSWORD   = "password";
+    private static final String COL_PASSWORD   = "password";        // PasswordHasher hash (plain text until first login)
     private static final String COL_GOAL       = "goal_weight";
     private static final String COL_EMAIL      = "email";
     private static final String COL_FIRST      = "first_name";
     private static final String COL_LAST       = "last_name";
     private static final String COL_SEC_Q      = "sec_question";
-    private static final String COL_SEC_AH     = "sec_answer_hash"; // kept for compatibility
+    private static final String COL_SEC_AH     = "sec_answer_hash"; // PasswordHasher hash (plain text until first login)
     private static final String COL_CREATED_AT = "created_at";
+    private static final String COL_GOAL_STATE = "goal_state";     // GoalEvaluator.STATE_*
+    private static final String COL_CROSSINGS  = "goal_crossings"; // times the goal has been reached
+
+    // Weights table (package-private so WeightRollups can build its triggers)
+    static final String TABLE_WEIGHTS  = "weights";
+    static final String COL_WEIGHT_ID  = "_id";
+    static final String COL_USER_FK    = "user_id";
+    static final String COL_DAY        = "entry_day"; // days since 1970-01-01
+    static final String COL_WEIGHT     = "weight_lbs";
+
+    // Per-user running statistics (one row per user, see WeightStats)
+    private static final String TABLE_STATS    = "user_stats";
+    private static final String COL_STATS_USER = "user_id";
+    private static final String COL_ST_COUNT   = "entry_count";
+    private static final String COL_ST_MEAN    = "mean";
+    private static final String COL_ST_M2      = "m2";
+    private static final String COL_ST_MIN     = "min_weight";
+    private static final String COL_ST_MAX     = "max_weight";
+    private static final String COL_ST_EMA     = "ema";
+    private static final String COL_ST_FIRST   = "first_weight";
+    private static final String COL_ST_LAST    = "last_weight";
+
+    // Free-form date text used before version 4 (only read during the upgrade)
+    private static final String COL_DATE_TEXT  = "entry_date";
+
+    // Weight rows whose pre-version-4 date text couldn't be read, kept by their original row id with
+    // the text as typed. They stay out of weights, so history, stats, rollups and the chart never
+    // see them as 1970-01-01 entries. entry_date is null for rows an earlier version of the
+    // migration had already put on day 0 (the text was dropped then).
+    static final String TABLE_UNDATED = "weights_undated";
+
+    // Rollup bucket sizes for getRollups
+    public static final String PERIOD_DAY   = WeightRollups.PERIOD_DAY;
+    public static final String PERIOD_WEEK  = WeightRollups.PERIOD_WEEK;
+    public static final String PERIOD_MONTH = WeightRollups.PERIOD_MONTH;
+
+    // Keyset values that sit above every real entry (start of getWeightsPage)
+    public static final int FIRST_PAGE_DAY = Integer.MAX_VALUE;
+    public static final long FIRST_PAGE_ID = Long.MAX_VALUE;
+
+    // Rows written by addWeights between chances for other threads to get at the database
+    public static final int DEFAULT_BULK_CHUNK = 500;
+
+    // Covering index for per-user history: the lookup, the sort, and every selected column
+    // come straight from the index. _id is listed so same-day entries have a stable order.
+    private static final String IDX_WEIGHTS_USER_DAY = "idx_weights_user_day";
+
+    // Single-value user lookups, run through cached compiled statements (see queryLong/queryString).
+    // Each one always returns exactly one row, so a missing user gives 0/-1/null instead of an error.
+    static final String SQL_USERNAME_EXISTS = "SELECT EXISTS(SELECT 1 FROM " + TABLE_USERS +
+            " WHERE " + COL_USERNAME + "=?)";
+    static final String SQL_EMAIL_EXISTS = "SELECT EXISTS(SELECT 1 FROM " + TABLE_USERS +
+            " WHERE " + COL_EMAIL + "=?)";
+    static final String SQL_USER_ID_EXISTS = "SELECT EXISTS(SELECT 1 FROM " + TABLE_USERS +
+            " WHERE " + COL_USER_ID + "=?)";
+    static final String SQL_USER_ID = "SELECT COALESCE((SELECT " + COL_USER_ID + " FROM " + TABLE_USERS +
+            " WHERE " + COL_USERNAME + "=?), -1)";
+    static final String SQL_PASSWORD_HASH = "SELECT (SELECT " + COL_PASSWORD + " FROM " + TABLE_USERS +
+            " WHERE " + COL_USERNAME + "=?)";
+    static final String SQL_USERNAME_BY_EMAIL = "SELECT (SELECT " + COL_USERNAME + " FROM " + TABLE_USERS +
+            " WHERE " + COL_EMAIL + "=?)";
+    static final String SQL_SECURITY_QUESTION = "SELECT (SELECT " + COL_SEC_Q + " FROM " + TABLE_USERS +
+            " WHERE " + COL_USERNAME + "=?)";
+    static final String SQL_SECURITY_ANSWER = "SELECT (SELECT " + COL_SEC_AH + " FROM " + TABLE_USERS +
+            " WHERE " + COL_USERNAME + "=?)";
+    // Account details for the profile cache (one row by primary key)
+    static final String SQL_PROFILE = "SELECT " + COL_USERNAME + ", " + COL_FIRST + ", " + COL_LAST + ", " +
+            COL_GOAL + ", " + COL_CREATED_AT + " FROM " + TABLE_USERS + " WHERE " + COL_USER_ID + "=?";
+    static final String SQL_GOAL_WEIGHT = "SELECT COALESCE((SELECT " + COL_GOAL + " FROM " + TABLE_USERS +
+            " WHERE " + COL_USER_ID + "=?), 0)";
+
+    // Lookups behind WeightStats.Series. Min/max read the month rollups (a few dozen rows);
+    // the rest read the ends of the per-user index.
+    static final String SQL_SERIES_MIN = "SELECT MIN(" + WeightRollups.COL_MIN + ") FROM " +
+            WeightRollups.TABLE_ROLLUPS + " WHERE " + WeightRollups.COL_USER + "=? AND " +
+            WeightRollups.COL_PERIOD + "='" + WeightRollups.PERIOD_MONTH + "'";
+    static final String SQL_SERIES_MAX = "SELECT MAX(" + WeightRollups.COL_MAX + ") FROM " +
+            WeightRollups.TABLE_ROLLUPS + " WHERE " + WeightRollups.COL_USER + "=? AND " +
+            WeightRollups.COL_PERIOD + "='" + WeightRollups.PERIOD_MONTH + "'";
+    static final String SQL_SERIES_FIRST = "SELECT " + COL_WEIGHT + " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + "=? ORDER BY " + COL_DAY + ", " + COL_WEIGHT_ID + " LIMIT 1";
+    static final String SQL_SERIES_RECENT = "SELECT " + COL_WEIGHT + " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + "=? ORDER BY " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC LIMIT ?";
+
+    // Insert used by the bulk path (compiled once per addWeights call)
+    private static final String SQL_INSERT_WEIGHT = "INSERT INTO " + TABLE_WEIGHTS + " (" +
+            COL_USER_FK + ", " + COL_DAY + ", " + COL_WEIGHT + ") VALUES (?, ?, ?)";
+
+    // Per-user history query (newest first); kept as a constant so tests can check its plan
+    static final String SQL_ALL_WEIGHTS = "SELECT " + COL_WEIGHT_ID + ", " + COL_DAY + ", " + COL_WEIGHT +
+            " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + "=?" +
+            " ORDER BY " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC";
 
-    // Weights table
-    private static final String TABLE_WEIGHTS  = "weights";
-    private static final String COL_WEIGHT_ID  = "_id";
-    private static final String COL_USER_FK    = "user_id";
-    private static final String COL_DATE       = "entry_date";
-    private static final String COL_WEIGHT     = "weight_lbs";
+    // A user's whole history, oldest first, for the in-memory WeightSeries (same index, read backwards)
+    static final String SQL_SERIES_ALL = "SELECT " + COL_WEIGHT_ID + ", " + COL_DAY + ", " + COL_WEIGHT +
+            " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + "=?" +
+            " ORDER BY " + COL_DAY + ", " + COL_WEIGHT_ID;
+
+    // One page of a user's history (newest first) that starts just after the (day, id) of the
+    // last row already shown. The day bound is what the index seeks on; the OR only trims
+    // same-day rows that were already returned.
+    static final String SQL_WEIGHTS_PAGE = "SELECT " + COL_WEIGHT_ID + ", " + COL_DAY + ", " + COL_WEIGHT +
+            " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + "=? AND " + COL_DAY + " <= ?" +
+            " AND (" + COL_DAY + " < ? OR " + COL_WEIGHT_ID + " < ?)" +
+            " ORDER BY " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC" +
+            " LIMIT ?";
+
+    // Goal plus the newest entry in one lookup: the subquery reads a single row off the end of
+    // the per-user index (LIMIT 1) and the join fetches it by row id
+    static final String SQL_GOAL_STATUS = "SELECT u." + COL_GOAL + ", w." + COL_WEIGHT_ID + ", w." + COL_DAY +
+            ", w." + COL_WEIGHT +
+            " FROM " + TABLE_USERS + " u LEFT JOIN " + TABLE_WEIGHTS + " w ON w." + COL_WEIGHT_ID + " = (" +
+            "SELECT " + COL_WEIGHT_ID + " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + " = u." + COL_USER_ID +
+            " ORDER BY " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC LIMIT 1)" +
+            " WHERE u." + COL_USER_ID + "=?";
+
+    // Everything GoalEvaluator needs for a user: goal, saved state, and the newest weight from user_stats
+    static final String SQL_GOAL_SNAPSHOT = "SELECT u." + COL_GOAL + ", u." + COL_GOAL_STATE + ", u." + COL_CROSSINGS +
+            ", s." + COL_ST_COUNT + ", s." + COL_ST_LAST +
+            " FROM " + TABLE_USERS + " u LEFT JOIN " + TABLE_STATS + " s ON s." + COL_STATS_USER + " = u." + COL_USER_ID +
+            " WHERE u." + COL_USER_ID + "=?";
+
+    // Per-user entries inside an inclusive day range (oldest first)
+    static final String SQL_WEIGHTS_BETWEEN = "SELECT " + COL_WEIGHT_ID + ", " + COL_DAY + ", " + COL_WEIGHT +
+            " FROM " + TABLE_WEIGHTS +
+            " WHERE " + COL_USER_FK + "=? AND " + COL_DAY + " BETWEEN ? AND ?" +
+            " ORDER BY " + COL_DAY + ", " + COL_WEIGHT_ID;
+
+    // Page cache per connection in concurrent mode (negative = KiB, so about 8 MB)
+    private static final int CONCURRENT_CACHE_KIB = 8 * 1024;
+
+    private final boolean concurrent;
+
+    // Compiled lookups keyed by SQL, created on first use and closed with the helper.
+    // A statement holds its bound arguments, so each one is used under its own lock.
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+
+    // Counters alongside the per-statement timers (see query and insert)
+    private static final LongAdder WEIGHTS_INSERTED = Metrics.counter("db.weightsInserted");
+    private static final LongAdder SLOW_QUERIES = Metrics.counter("db.slowQueries");
 
     public DatabaseHelper(Context context) {
-        super(context, DB_NAME, null, DB_VERSION);
+        this(context, DB_NAME, false);
+    }
+
+    // concurrent = true turns on write-ahead logging and the pragmas that go with it (see top)
+    public DatabaseHelper(Context context, boolean concurrent) {
+        this(context, DB_NAME, concurrent);
     }
 
-    // Creates both tables the first time the app runs
+    // Lets tests open a separate file (or an in-memory database when name is null)
+    DatabaseHelper(Context context, String name) {
+        this(context, name, false);
+    }
+
+    DatabaseHelper(Context context, String name, boolean concurrent) {
+        super(context, name, null, DB_VERSION);
+        this.concurrent = concurrent;
+        // must be set before the first open; ignored for in-memory databases
+        setWriteAheadLoggingEnabled(concurrent);
+    }
+
+    // Runs on every open, before onCreate/onUpgrade
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        if (!concurrent) return;
+        // With WAL, NORMAL only syncs at checkpoints: a crash can lose the last commits but never corrupts
+        db.execSQL("PRAGMA synchronous=NORMAL");
+        db.execSQL("PRAGMA cache_size=-" + CONCURRENT_CACHE_KIB);
+        // sorts and temp indexes stay in memory instead of temp files
+        db.execSQL("PRAGMA temp_store=MEMORY");
+    }
+
+    // True if this helper was opened in concurrent (write-ahead logging) mode
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    // Creates the tables the first time the app runs
     @Override
     public void onCreate(SQLiteDatabase db) {
         // Users table: stores basic account info and goal data
@@ -53,7 +249,9 @@ public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable {
                 COL_LAST       + " TEXT, " +
                 COL_SEC_Q      + " TEXT, " +
                 COL_SEC_AH     + " TEXT, " +
-                COL_CREATED_AT + " INTEGER" +
+                COL_CREATED_AT + " INTEGER, " +
+                COL_GOAL_STATE + " INTEGER DEFAULT 0, " +
+                COL_CROSSINGS  + " INTEGER DEFAULT 0" +
                 ")");
 
         // Adds an index so no two users can share the same email (still allows empty ones)
@@ -61,10 +259,49 @@ public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable {
                 TABLE_USERS + "(" + COL_EMAIL + ")");
 
         // Weights table: stores each logged weight tied to a specific user
-        db.execSQL("CREATE TABLE " + TABLE_WEIGHTS + " (" +
+        createWeightsTable(db, TABLE_WEIGHTS);
+        createWeightsIndex(db);
+
+        // Day/week/month summaries kept up to date by triggers on weights
+        WeightRollups.create(db);
+
+        // Running statistics, updated alongside every weight change
+        createStatsTable(db);
+
+        // Queued goal alerts (see SmsOutbox)
+        SmsOutbox.createTable(db);
+
+        // Only upgrades put rows here, but keep the schema the same either way
+        createUndatedTable(db);
+    }
+
+    private static void createUndatedTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_UNDATED + " (" +
+                COL_WEIGHT_ID + " INTEGER PRIMARY KEY, " +
+                COL_USER_FK   + " INTEGER, " +
+                COL_DATE_TEXT + " TEXT, " +
+                COL_WEIGHT    + " REAL)");
+    }
+
+    private static void createStatsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_STATS + " (" +
+                COL_STATS_USER + " INTEGER PRIMARY KEY, " +
+                COL_ST_COUNT   + " INTEGER NOT NULL, " +
+                COL_ST_MEAN    + " REAL NOT NULL, " +
+                COL_ST_M2      + " REAL NOT NULL, " +
+                COL_ST_MIN     + " REAL NOT NULL, " +
+                COL_ST_MAX     + " REAL NOT NULL, " +
+                COL_ST_EMA     + " REAL NOT NULL, " +
+                COL_ST_FIRST   + " REAL NOT NULL, " +
+                COL_ST_LAST    + " REAL NOT NULL)");
+    }
+
+    // Weights table layout (also used to rebuild the table during upgrades)
+    private static void createWeightsTable(SQLiteDatabase db, String name) {
+        db.execSQL("CREATE TABLE " + name + " (" +
                 COL_WEIGHT_ID  + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 COL_USER_FK    + " INTEGER, " +
-                COL_DATE       + " TEXT, " +
+                COL_DAY        + " INTEGER NOT NULL, " +
                 COL_WEIGHT     + " REAL, " +
                 "FOREIGN KEY(" + COL_USER_FK + ") REFERENCES " +
                 TABLE_USERS + "(" + COL_USER_ID + "))");
@@ -98,114 +335,216 @@ public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable {
             db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_users_email ON " +
                     TABLE_USERS + "(" + COL_EMAIL + ")");
         }
+        if (oldVersion < 3) {
+            // Per-user weight reads used to scan the whole table and sort it every time
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_weights_user_date ON " + TABLE_WEIGHTS + "(" +
+                    COL_USER_FK + ", " + COL_DATE_TEXT + " DESC, " + COL_WEIGHT + ")");
+        }
+        if (oldVersion < 4) {
+            // Dates were stored as typed text; rebuild the table with integer epoch days
+            migrateDatesToEpochDays(db);
+        }
+        if (oldVersion < 5) {
+            // Trend views used to rescan raw entries; add the rollup table, its triggers and backfill it
+            WeightRollups.create(db);
+        }
+        if (oldVersion < 6) {
+            // One full pass per user to seed the saved statistics; every edit after this is incremental
+            createStatsTable(db);
+            backfillStats(db);
+        }
+        if (oldVersion < 7) {
+            // Goal alerts used to be sent straight from the screen; they now go through a queue
+            SmsOutbox.createTable(db);
+        }
+        if (oldVersion < 8) {
+            // Starts every user at "unknown"; their first change sets the baseline without an alert
+            db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + COL_GOAL_STATE + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + COL_CROSSINGS + " INTEGER DEFAULT 0");
+        }
+        if (oldVersion < 9) {
+            // The version 4 migration used to put unreadable dates on day 0, where they became each
+            // user's oldest entry and skewed the total change, the EMA and the chart range
+            createUndatedTable(db);
+            if (oldVersion >= 4) moveDayZeroEntries(db);
+        }
+    }
+
+    // Moves day-0 rows left by the old version 4 migration into TABLE_UNDATED (upgrade only).
+    // The rollup triggers take them out of the summaries; the saved stats are recomputed.
+    private static void moveDayZeroEntries(SQLiteDatabase db) {
+        String where = " FROM " + TABLE_WEIGHTS + " WHERE " + COL_DAY + "=0";
+        long[] users;
+        try (Cursor c = db.rawQuery("SELECT DISTINCT " + COL_USER_FK + where, null)) {
+            users = new long[c.getCount()];
+            for (int i = 0; c.moveToNext(); i++) users[i] = c.getLong(0);
+        }
+        if (users.length == 0) return;
+        db.execSQL("INSERT INTO " + TABLE_UNDATED + " (" + COL_WEIGHT_ID + ", " + COL_USER_FK + ", " +
+                COL_DATE_TEXT + ", " + COL_WEIGHT + ") SELECT " + COL_WEIGHT_ID + ", " + COL_USER_FK +
+                ", NULL, " + COL_WEIGHT + where);
+        db.execSQL("DELETE" + where);
+        for (long userId : users) recomputeStats(db, userId);
     }
 
-    // Creates a new user with all registration details filled in
+    // Recomputes every user's statistics from their full history (upgrade only)
+    private static void backfillStats(SQLiteDatabase db) {
+        try (Cursor users = db.rawQuery("SELECT DISTINCT " + COL_USER_FK + " FROM " + TABLE_WEIGHTS, null)) {
+            while (users.moveToNext()) recomputeStats(db, users.getLong(0));
+        }
+    }
+
+    // One user's statistics from their full history (upgrade only)
+    private static void recomputeStats(SQLiteDatabase db, long userId) {
+        double[] series = new double[256];
+        int n = 0;
+        try (Cursor c = db.rawQuery("SELECT " + COL_WEIGHT + " FROM " + TABLE_WEIGHTS +
+                        " WHERE " + COL_USER_FK + "=? ORDER BY " + COL_DAY + ", " + COL_WEIGHT_ID,
+                new String[]{String.valueOf(userId)})) {
+            while (c.moveToNext()) {
+                if (n == series.length) series = Arrays.copyOf(series, n * 2);
+                series[n++] = c.getDouble(0);
+            }
+        }
+        saveStats(db, userId, WeightStats.recompute(series, n));
+    }
+
+    // Copies every weight row into a new table, parsing the old date text into an epoch day.
+    // Row ids are kept so nothing that refers to an entry breaks. Rows whose text can't be read go
+    // to TABLE_UNDATED, text and all, instead of getting a made-up date.
+    private void migrateDatesToEpochDays(SQLiteDatabase db) {
+        String rebuilt = TABLE_WEIGHTS + "_v4";
+        createWeightsTable(db, rebuilt);
+        createUndatedTable(db);
+
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + rebuilt + " (" +
+                COL_WEIGHT_ID + ", " + COL_USER_FK + ", " + COL_DAY + ", " + COL_WEIGHT + ") VALUES (?, ?, ?, ?)");
+        SQLiteStatement undated = db.compileStatement("INSERT INTO " + TABLE_UNDATED + " (" +
+                COL_WEIGHT_ID + ", " + COL_USER_FK + ", " + COL_DATE_TEXT + ", " + COL_WEIGHT + ") VALUES (?, ?, ?, ?)");
+        try (Cursor c = db.rawQuery("SELECT " + COL_WEIGHT_ID + ", " + COL_USER_FK + ", " +
+                COL_DATE_TEXT + ", " + COL_WEIGHT + " FROM " + TABLE_WEIGHTS, null)) {
+            while (c.moveToNext()) {
+                String text = c.getString(2);
+                int day = EpochDays.parse(text);
+                if (day == EpochDays.INVALID) {
+                    undated.clearBindings();
+                    undated.bindLong(1, c.getLong(0));
+                    undated.bindLong(2, c.getLong(1));
+                    if (text != null) undated.bindString(3, text);
+                    undated.bindDouble(4, c.getDouble(3));
+                    undated.executeInsert();
+                    continue;
+                }
+
+                insert.clearBindings();
+                insert.bindLong(1, c.getLong(0));
+                insert.bindLong(2, c.getLong(1));
+                insert.bindLong(3, day);
+                insert.bindDouble(4, c.getDouble(3));
+                insert.executeInsert();
+            }
+        } finally {
+            insert.close();
+            undated.close();
+        }
+
+        // The rebuilt table's AUTOINCREMENT sequence only knows the ids copied into it. Keep it past
+        // every id the old table handed out, the set-aside ones included, so none is given out again.
+        long lastId = 0;
+        try (Cursor c = db.rawQuery("SELECT seq FROM sqlite_sequence WHERE name=?", new String[]{TABLE_WEIGHTS})) {
+            if (c.moveToFirst()) lastId = c.getLong(0);
+        }
+
+        // Dropping the old table also drops its text-date index
+        db.execSQL("DROP TABLE " + TABLE_WEIGHTS);
+        db.execSQL("ALTER TABLE " + rebuilt + " RENAME TO " + TABLE_WEIGHTS);
+        createWeightsIndex(db);
+
+        db.execSQL("DELETE FROM sqlite_sequence WHERE name=?", new Object[]{TABLE_WEIGHTS});
+        db.execSQL("INSERT INTO sqlite_sequence (name, seq) SELECT ?, MAX(?, " +
+                "IFNULL((SELECT MAX(" + COL_WEIGHT_ID + ") FROM " + TABLE_WEIGHTS + "), 0), " +
+                "IFNULL((SELECT MAX(" + COL_WEIGHT_ID + ") FROM " + TABLE_UNDATED + "), 0))",
+                new Object[]{TABLE_WEIGHTS, lastId});
+    }
+
+    // Index on (user, newest day first, row id, weight) so history reads are a range scan with no sort step
+    private static void createWeightsIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_WEIGHTS_USER_DAY + " ON " + TABLE_WEIGHTS + "(" +
+                COL_USER_FK + ", " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC, " + COL_WEIGHT + ")");
+    }
+
+    // Creates a new user with all registration details filled in. The password and answer are
+    // stored as given: WeightRepository hashes them first (see PasswordHasher).
     public long createUserFull(String first, String last, String email,
-                               String username, String password,
-                               String secQuestion, String secAnswerPlain) {
+                               String username, String passwordHash,
+                               String secQuestion, String secAnswerHash) {
         SQLiteDatabase db = getWritableDatabase();
         ContentValues v = new ContentValues();
         v.put(COL_FIRST, trimOrNull(first));
         v.put(COL_LAST,  trimOrNull(last));
         v.put(COL_EMAIL, trimLower(email));
         v.put(COL_USERNAME, username == null ? null : username.trim());
-        v.put(COL_PASSWORD, password);
+        v.put(COL_PASSWORD, passwordHash);
         v.put(COL_SEC_Q, trimOrNull(secQuestion));
-        v.put(COL_SEC_AH, trimOrNull(secAnswerPlain)); // stored as plain text for now
+        v.put(COL_SEC_AH, secAnswerHash);
         v.put(COL_CREATED_AT, System.currentTimeMillis());
-        return db.insert(TABLE_USERS, null, v);
+        return insert(db, "db.createUserFull", TABLE_USERS, v);
     }
 
     // Checks if a username already exists
     public boolean usernameExists(String username) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_USER_ID},
-                COL_USERNAME + "=?", new String[]{username == null ? "" : username.trim()},
-                null, null, null);
-        boolean exists = c.moveToFirst();
-        c.close();
-        return exists;
+        return queryLong("db.usernameExists", SQL_USERNAME_EXISTS, username == null ? "" : username.trim()) != 0;
     }
 
     // Checks if an email is already being used
     public boolean emailExists(String email) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_USER_ID},
-                COL_EMAIL + "=?", new String[]{trimLower(email)},
-                null, null, null);
-        boolean exists = c.moveToFirst();
-        c.close();
-        return exists;
+        return queryLong("db.emailExists", SQL_EMAIL_EXISTS, nullToEmpty(trimLower(email))) != 0;
     }
 
-    // Confirms a user ID still exists in the database (useful if a session needs to be verified)
-    @SuppressWarnings("unused")
+    // Confirms a user ID still exists in the database (Session checks its saved id with this)
     public boolean userIdExists(long id) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_USER_ID},
-                COL_USER_ID + "=?", new String[]{String.valueOf(id)},
-                null, null, null);
-        boolean found = c.moveToFirst();
-        c.close();
-        return found;
+        return queryLong("db.userIdExists", SQL_USER_ID_EXISTS, String.valueOf(id)) != 0;
     }
 
-    // Checks if a username and password match, and returns that user's ID
-    public long authenticate(String username, String password) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_USER_ID},
-                COL_USERNAME + "=? AND " + COL_PASSWORD + "=?",
-                new String[]{username == null ? "" : username.trim(), password},
-                null, null, null);
-        long userId = -1;
-        if (c.moveToFirst()) userId = c.getLong(0);
-        c.close();
-        return userId;
+    // Returns the user's ID for a username, or -1 if there's no such user
+    public long getUserId(String username) {
+        return queryLong("db.getUserId", SQL_USER_ID, username == null ? "" : username.trim());
+    }
+
+    // Stored password hash for a username (null if there's no such user); checked by WeightRepository
+    public String getPasswordHash(String username) {
+        return queryString("db.getPasswordHash", SQL_PASSWORD_HASH, username == null ? "" : username.trim());
     }
 
     // Finds a username by matching an email address
     public String getUsernameByEmail(String email) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_USERNAME},
-                COL_EMAIL + "=?", new String[]{trimLower(email)},
-                null, null, null);
-        String username = null;
-        if (c.moveToFirst()) username = c.getString(0);
-        c.close();
-        return username;
+        return queryString("db.getUsernameByEmail", SQL_USERNAME_BY_EMAIL, nullToEmpty(trimLower(email)));
     }
 
     // Gets the stored security question for a user
     public String getSecurityQuestion(String username) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_SEC_Q},
-                COL_USERNAME + "=?", new String[]{username == null ? "" : username.trim()},
-                null, null, null);
-        String question = null;
-        if (c.moveToFirst()) question = c.getString(0);
-        c.close();
-        return question;
+        return queryString("db.getSecurityQuestion", SQL_SECURITY_QUESTION, username == null ? "" : username.trim());
     }
 
-    // Gets the security answer (still plain text for this project)
+    // Gets the stored security answer hash (plain text for accounts that haven't logged in since hashing)
     public String getSecurityAnswer(String username) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.query(TABLE_USERS, new String[]{COL_SEC_AH},
-                COL_USERNAME + "=?", new String[]{username == null ? "" : username.trim()},
-                null, null, null);
-        String answer = null;
-        if (c.moveToFirst()) answer = c.getString(0);
-        c.close();
-        return answer;
+        return queryString("db.getSecurityAnswer", SQL_SECURITY_ANSWER, username == null ? "" : username.trim());
     }
 
-    // Updates a user’s password when they reset it
-    public boolean updatePassword(String username, String newPassword) {
+    // Replaces a user's stored security answer hash
+    public void setSecurityAnswerHash(String username, String answerHash) {
+        ContentValues cv = new ContentValues();
+        cv.put(COL_SEC_AH, answerHash);
+        update(getWritableDatabase(), "db.setSecurityAnswerHash", TABLE_USERS, cv, COL_USERNAME + "=?",
+                new String[]{username == null ? "" : username.trim()});
+    }
+
+    // Updates a user’s password hash when they reset it (or when an old hash is upgraded)
+    public boolean updatePassword(String username, String newPasswordHash) {
         SQLiteDatabase db = getWritableDatabase();
         ContentValues cv = new ContentValues();
-        cv.put(COL_PASSWORD, newPassword);
-        int rows = db.update(TABLE_USERS, cv, COL_USERNAME + "=?",
+        cv.put(COL_PASSWORD, newPasswordHash);
+        int rows = update(db, "db.updatePassword", TABLE_USERS, cv, COL_USERNAME + "=?",
                 new String[]{username == null ? "" : username.trim()});
         return rows > 0;
     }
@@ -215,64 +554,471 @@ public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable {
         SQLiteDatabase db = getWritableDatabase();
         ContentValues cv = new ContentValues();
         cv.put(COL_GOAL, goal);
-        db.update(TABLE_USERS, cv, COL_USER_ID + "=?",
+        update(db, "db.setGoalWeight", TABLE_USERS, cv, COL_USER_ID + "=?",
                 new String[]{String.valueOf(userId)});
     }
 
+    // Account details for a user, or null if there's no such user
+    public UserProfile getProfile(long userId) {
+        try (Cursor c = query(getReadableDatabase(), "db.getProfile", SQL_PROFILE,
+                new String[]{String.valueOf(userId)})) {
+            if (!c.moveToFirst()) return null;
+            return new UserProfile(userId, c.getString(0), c.getString(1), c.getString(2),
+                    c.getDouble(3), c.isNull(4) ? 0 : c.getLong(4));
+        }
+    }
+
     // Returns the goal weight for a user (0 if none is set)
     public double getGoalWeight(long userId) {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor c = db.rawQuery("SELECT " + COL_GOAL +
-                        " FROM " + TABLE_USERS +
-                        " WHERE " + COL_USER_ID + "=?",
+        String goal = queryString("db.getGoalWeight", SQL_GOAL_WEIGHT, String.valueOf(userId));
+        return goal == null ? 0 : Double.parseDouble(goal);
+    }
+
+    // Goal weight and newest entry for the tracker banner
+    public static class GoalStatus {
+        public final double goal;          // 0 if none is set
+        public final boolean hasLatest;    // false until the user logs a weight
+        public final long latestId;
+        public final int latestDay;        // epoch day
+        public final double latestWeight;
+
+        GoalStatus(double goal, boolean hasLatest, long latestId, int latestDay, double latestWeight) {
+            this.goal = goal;
+            this.hasLatest = hasLatest;
+            this.latestId = latestId;
+            this.latestDay = latestDay;
+            this.latestWeight = latestWeight;
+        }
+    }
+
+    // GoalEvaluator.Store: goal, newest weight (from the saved stats) and saved goal state in one row
+    @Override
+    public GoalEvaluator.Snapshot load(long userId) {
+        try (Cursor c = query(getReadableDatabase(), "db.goalStore.load", SQL_GOAL_SNAPSHOT,
+                new String[]{String.valueOf(userId)})) {
+            if (!c.moveToFirst()) return new GoalEvaluator.Snapshot(0, Double.NaN, GoalEvaluator.STATE_UNKNOWN, 0);
+            double latest = c.isNull(3) || c.getLong(3) == 0 ? Double.NaN : c.getDouble(4);
+            return new GoalEvaluator.Snapshot(c.getDouble(0), latest, c.getInt(1), c.getInt(2));
+        }
+    }
+
+    // GoalEvaluator.Store: saves a user's goal state after it changes
+    @Override
+    public void save(long userId, int state, int crossings) {
+        ContentValues cv = new ContentValues();
+        cv.put(COL_GOAL_STATE, state);
+        cv.put(COL_CROSSINGS, crossings);
+        update(getWritableDatabase(), "db.goalStore.save", TABLE_USERS, cv, COL_USER_ID + "=?",
                 new String[]{String.valueOf(userId)});
-        double goal = 0;
-        if (c.moveToFirst()) goal = c.getDouble(0);
-        c.close();
-        return goal;
     }
 
-    // Adds a new weight record for a user
+    // Newest weight for a user from the saved stats (NaN if they have no entries); one row, no index walk
+    public double getLatestWeight(long userId) {
+        WeightStats stats = getStats(userId);
+        return stats.getCount() == 0 ? Double.NaN : stats.getLast();
+    }
+
+    // Returns the goal and the newest entry together (one small indexed lookup)
+    public GoalStatus getGoalStatus(long userId) {
+        SQLiteDatabase db = getReadableDatabase();
+        try (Cursor c = query(db, "db.getGoalStatus", SQL_GOAL_STATUS, new String[]{String.valueOf(userId)})) {
+            if (!c.moveToFirst()) return new GoalStatus(0, false, -1, 0, 0);
+            boolean hasLatest = !c.isNull(1);
+            return new GoalStatus(c.getDouble(0), hasLatest,
+                    hasLatest ? c.getLong(1) : -1,
+                    hasLatest ? c.getInt(2) : 0,
+                    hasLatest ? c.getDouble(3) : 0);
+        }
+    }
+
+    // Adds a new weight record for a user (day is an epoch day, see EpochDays)
     @SuppressWarnings("UnusedReturnValue")
-    public long addWeight(long userId, String date, double weight) {
+    public long addWeight(long userId, int epochDay, double weight) {
         SQLiteDatabase db = getWritableDatabase();
         ContentValues v = new ContentValues();
         v.put(COL_USER_FK, userId);
-        v.put(COL_DATE, date);
+        v.put(COL_DAY, epochDay);
         v.put(COL_WEIGHT, weight);
-        return db.insert(TABLE_WEIGHTS, null, v);
+        db.beginTransaction();
+        try {
+            long id = insert(db, "db.addWeight", TABLE_WEIGHTS, v);
+            if (id != -1) {
+                WeightStats stats = loadStats(db, userId);
+                stats.onAdded(weight, new DbSeries(db, userId));
+                saveStats(db, userId, stats);
+            }
+            db.setTransactionSuccessful();
+            if (id != -1) WEIGHTS_INSERTED.increment();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // One weight entry for addWeights (day is an epoch day)
+    public static class Entry {
+        public final int epochDay;
+        public final double weight;
+
+        public Entry(int epochDay, double weight) {
+            this.epochDay = epochDay;
+            this.weight = weight;
+        }
+    }
+
+    // Adds many weight records for a user in one transaction with one compiled statement
+    @SuppressWarnings("UnusedReturnValue")
+    public int addWeights(long userId, Iterable<Entry> entries) {
+        return addWeights(userId, entries, DEFAULT_BULK_CHUNK);
     }
 
-    // Returns all stored weight entries for a specific user
+    // Same as above; every chunkSize rows the transaction may briefly yield if another thread
+    // is waiting (work done so far is committed first), so a big import doesn't lock out the UI.
+    // Returns the number of rows inserted.
+    public int addWeights(long userId, Iterable<Entry> entries, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be at least 1");
+        SQLiteDatabase db = getWritableDatabase();
+        int inserted = 0;
+        WeightStats chunk = new WeightStats(); // moments of the rows not yet folded into the saved stats
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(SQL_INSERT_WEIGHT)) {
+            insert.bindLong(1, userId); // same user for every row
+            for (Entry e : entries) {
+                insert.bindLong(2, e.epochDay);
+                insert.bindDouble(3, e.weight);
+                insert.executeInsert();
+                chunk.add(e.weight);
+                if (++inserted % chunkSize == 0) {
+                    // stats must be current before a yield commits the rows so far
+                    foldIntoStats(db, userId, chunk);
+                    chunk = new WeightStats();
+                    db.yieldIfContendedSafely();
+                }
+            }
+            foldIntoStats(db, userId, chunk);
+            db.setTransactionSuccessful();
+            WEIGHTS_INSERTED.add(inserted);
+        } finally {
+            db.endTransaction();
+        }
+        return inserted;
+    }
+
+    // Adds a bulk-insert chunk's moments to the saved statistics
+    private static void foldIntoStats(SQLiteDatabase db, long userId, WeightStats chunk) {
+        if (chunk.getCount() == 0) return;
+        WeightStats stats = loadStats(db, userId);
+        stats.onBatchAdded(chunk, new DbSeries(db, userId));
+        saveStats(db, userId, stats);
+    }
+
+    // Returns all stored weight entries for a specific user (columns: _id, entry_day, weight_lbs)
     public Cursor getAllWeights(long userId) {
         SQLiteDatabase db = getReadableDatabase();
-        return db.query(TABLE_WEIGHTS,
-                new String[]{COL_WEIGHT_ID, COL_DATE, COL_WEIGHT},
-                COL_USER_FK + "=?",
-                new String[]{String.valueOf(userId)},
-                null, null,
-                COL_DATE + " DESC");
+        return query(db, "db.getAllWeights", SQL_ALL_WEIGHTS, new String[]{String.valueOf(userId)});
+    }
+
+    // Reads a user's whole history into parallel arrays (one query, columns read by position).
+    // The series starts from the saved stats row rather than recomputing them over the history.
+    public WeightSeries loadSeries(long userId) {
+        SQLiteDatabase db = getReadableDatabase();
+        WeightStats saved = loadStats(db, userId);
+        try (Cursor c = query(db, "db.loadSeries", SQL_SERIES_ALL, new String[]{String.valueOf(userId)})) {
+            int n = c.getCount();
+            long[] ids = new long[n];
+            int[] days = new int[n];
+            double[] weights = new double[n];
+            for (int i = 0; i < n && c.moveToNext(); i++) {
+                ids[i] = c.getLong(0);
+                days[i] = c.getInt(1);
+                weights[i] = c.getDouble(2);
+            }
+            // the two reads aren't one snapshot: if an add or delete slipped in between, recompute.
+            // (WeightRepository holds one lock across its loads and writes, so there none can.)
+            return saved.getCount() == n
+                    ? new WeightSeries(userId, ids, days, weights, n, saved)
+                    : new WeightSeries(userId, ids, days, weights, n);
+        }
     }
 
-    // Updates an existing weight entry (kept for possible edit feature)
-    @SuppressWarnings({"UnusedReturnValue", "unused"})
-    public int updateWeight(long id, String date, double weight) {
+    // Returns up to limit entries older than (beforeDay, beforeId), newest first.
+    // Pass FIRST_PAGE_DAY / FIRST_PAGE_ID for the first page, then the day and id of the last row
+    // returned. Each page costs the same no matter how long the history is.
+    public Cursor getWeightsPage(long userId, int beforeDay, long beforeId, int limit) {
+        SQLiteDatabase db = getReadableDatabase();
+        String day = String.valueOf(beforeDay);
+        return query(db, "db.getWeightsPage", SQL_WEIGHTS_PAGE, new String[]{
+                String.valueOf(userId), day, day, String.valueOf(beforeId), String.valueOf(limit)});
+    }
+
+    // Returns a user's entries from fromDay to toDay (inclusive, epoch days), oldest first
+    @SuppressWarnings("unused")
+    public Cursor getWeightsBetween(long userId, int fromDay, int toDay) {
+        SQLiteDatabase db = getReadableDatabase();
+        return query(db, "db.getWeightsBetween", SQL_WEIGHTS_BETWEEN, new String[]{
+                String.valueOf(userId), String.valueOf(fromDay), String.valueOf(toDay)});
+    }
+
+    // Returns a user's summary buckets of one size (PERIOD_DAY/WEEK/MONTH) whose first day falls
+    // between fromDay and toDay, oldest first. Columns: bucket_start, bucket_end, entry_count,
+    // weight_sum, weight_min, weight_max, last_weight, weight_avg.
+    @SuppressWarnings("unused")
+    public Cursor getRollups(long userId, String period, int fromDay, int toDay) {
+        SQLiteDatabase db = getReadableDatabase();
+        return query(db, "db.getRollups", WeightRollups.SQL_ROLLUPS, new String[]{
+                String.valueOf(userId), period, String.valueOf(fromDay), String.valueOf(toDay)});
+    }
+
+    // Updates an existing weight entry
+    @SuppressWarnings("UnusedReturnValue")
+    public int updateWeight(long id, int epochDay, double weight) {
         SQLiteDatabase db = getWritableDatabase();
         ContentValues v = new ContentValues();
-        v.put(COL_DATE, date);
+        v.put(COL_DAY, epochDay);
         v.put(COL_WEIGHT, weight);
-        return db.update(TABLE_WEIGHTS, v,
-                COL_WEIGHT_ID + "=?",
-                new String[]{String.valueOf(id)});
+        String[] args = {String.valueOf(id)};
+        db.beginTransaction();
+        try (Cursor old = query(db, "db.weightOwner", "SELECT " + COL_USER_FK + ", " + COL_WEIGHT +
+                " FROM " + TABLE_WEIGHTS + " WHERE " + COL_WEIGHT_ID + "=?", args)) {
+            if (!old.moveToFirst()) return 0;
+            long userId = old.getLong(0);
+            int rows = update(db, "db.updateWeight", TABLE_WEIGHTS, v, COL_WEIGHT_ID + "=?", args);
+            WeightStats stats = loadStats(db, userId);
+            stats.onReplaced(old.getDouble(1), weight, new DbSeries(db, userId));
+            saveStats(db, userId, stats);
+            db.setTransactionSuccessful();
+            return rows;
+        } finally {
+            db.endTransaction();
+        }
     }
 
     // Deletes a specific weight entry by its row ID
     @SuppressWarnings("UnusedReturnValue")
     public int deleteWeight(long id) {
         SQLiteDatabase db = getWritableDatabase();
-        return db.delete(TABLE_WEIGHTS,
-                COL_WEIGHT_ID + "=?",
-                new String[]{String.valueOf(id)});
+        String[] args = {String.valueOf(id)};
+        db.beginTransaction();
+        try (Cursor old = query(db, "db.weightOwner", "SELECT " + COL_USER_FK + ", " + COL_WEIGHT +
+                " FROM " + TABLE_WEIGHTS + " WHERE " + COL_WEIGHT_ID + "=?", args)) {
+            if (!old.moveToFirst()) return 0;
+            long userId = old.getLong(0);
+            int rows = delete(db, "db.deleteWeight", TABLE_WEIGHTS, COL_WEIGHT_ID + "=?", args);
+            WeightStats stats = loadStats(db, userId);
+            stats.onRemoved(old.getDouble(1), new DbSeries(db, userId));
+            saveStats(db, userId, stats);
+            db.setTransactionSuccessful();
+            return rows;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Returns the saved statistics for a user (empty if they have no entries). One row, no history scan.
+    public WeightStats getStats(long userId) {
+        return loadStats(getReadableDatabase(), userId);
+    }
+
+    private static WeightStats loadStats(SQLiteDatabase db, long userId) {
+        try (Cursor c = query(db, "db.loadStats", "SELECT " + COL_ST_COUNT + ", " + COL_ST_MEAN + ", " +
+                        COL_ST_M2 + ", " + COL_ST_MIN + ", " + COL_ST_MAX + ", " + COL_ST_EMA + ", " +
+                        COL_ST_FIRST + ", " + COL_ST_LAST + " FROM " + TABLE_STATS + " WHERE " + COL_STATS_USER + "=?",
+                new String[]{String.valueOf(userId)})) {
+            if (!c.moveToFirst()) return new WeightStats();
+            return new WeightStats(c.getLong(0), c.getDouble(1), c.getDouble(2), c.getDouble(3),
+                    c.getDouble(4), c.getDouble(5), c.getDouble(6), c.getDouble(7));
+        }
+    }
+
+    private static void saveStats(SQLiteDatabase db, long userId, WeightStats s) {
+        ContentValues v = new ContentValues();
+        v.put(COL_STATS_USER, userId);
+        v.put(COL_ST_COUNT, s.getCount());
+        v.put(COL_ST_MEAN, s.getMean());
+        v.put(COL_ST_M2, s.getM2());
+        v.put(COL_ST_MIN, s.getMin());
+        v.put(COL_ST_MAX, s.getMax());
+        v.put(COL_ST_EMA, s.getEma());
+        v.put(COL_ST_FIRST, s.getFirst());
+        v.put(COL_ST_LAST, s.getLast());
+        db.insertWithOnConflict(TABLE_STATS, null, v, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // WeightStats.Series over one user's stored rows. Runs inside the caller's write transaction,
+    // so it uses plain queries rather than the shared cached statements (those are locked per call
+    // and must not be held while waiting on a transaction).
+    private static class DbSeries implements WeightStats.Series {
+        private final SQLiteDatabase db;
+        private final String[] user;
+
+        DbSeries(SQLiteDatabase db, long userId) {
+            this.db = db;
+            this.user = new String[]{String.valueOf(userId)};
+        }
+
+        @Override public double min() { return firstDouble(SQL_SERIES_MIN, user); }
+
+        @Override public double max() { return firstDouble(SQL_SERIES_MAX, user); }
+
+        @Override public double first() { return firstDouble(SQL_SERIES_FIRST, user); }
+
+        @Override public double last() {
+            try (Cursor c = query(db, "db.statsSeries", SQL_SERIES_RECENT, new String[]{user[0], "1"})) {
+                return c.moveToFirst() ? c.getDouble(0) : 0;
+            }
+        }
+
+        @Override public int recent(double[] out) {
+            int n = 0;
+            try (Cursor c = query(db, "db.statsSeries", SQL_SERIES_RECENT,
+                    new String[]{user[0], String.valueOf(out.length)})) {
+                while (c.moveToNext() && n < out.length) out[n++] = c.getDouble(0);
+            }
+            return n;
+        }
+
+        private double firstDouble(String sql, String[] args) {
+            try (Cursor c = query(db, "db.statsSeries", sql, args)) {
+                return c.moveToFirst() && !c.isNull(0) ? c.getDouble(0) : 0;
+            }
+        }
+    }
+
+    // Closes the cached lookups along with the database
+    @Override
+    public synchronized void close() {
+        synchronized (statements) {
+            for (SQLiteStatement st : statements.values()) st.close();
+            statements.clear();
+        }
+        super.close();
+    }
+
+    // The helpers below time each statement under a metric name (see Metrics), usually the name of
+    // the public method they run for, and reads also go through the slow-query check.
+
+    // Runs a cached single-value lookup and returns its long result
+    private long queryLong(String metric, String sql, String... args) {
+        SQLiteStatement st = statement(sql);
+        Metrics.Timer timer = Metrics.timer(metric);
+        long start = timer.begin();
+        try {
+            synchronized (st) {
+                st.bindAllArgsAsStrings(args);
+                return st.simpleQueryForLong();
+            }
+        } finally {
+            logIfSlow(getReadableDatabase(), sql, args, timer.end(start));
+        }
+    }
+
+    // Runs a cached single-value lookup and returns its text result (null for SQL NULL)
+    private String queryString(String metric, String sql, String... args) {
+        SQLiteStatement st = statement(sql);
+        Metrics.Timer timer = Metrics.timer(metric);
+        long start = timer.begin();
+        try {
+            synchronized (st) {
+                st.bindAllArgsAsStrings(args);
+                return st.simpleQueryForString();
+            }
+        } finally {
+            logIfSlow(getReadableDatabase(), sql, args, timer.end(start));
+        }
+    }
+
+    // rawQuery that fills the cursor's first window before returning it, so the statement really
+    // runs here and the time (and slow-query check) covers SQLite's work only, not the caller's
+    // reading. The count comes with that first fill, so getCount() afterwards is free.
+    private static Cursor query(SQLiteDatabase db, String metric, String sql, String... args) {
+        Metrics.Timer timer = Metrics.timer(metric);
+        long start = timer.begin();
+        Cursor c;
+        try {
+            c = db.rawQuery(sql, args);
+            try {
+                c.getCount();
+            } catch (RuntimeException e) {
+                c.close();
+                throw e;
+            }
+        } finally {
+            logIfSlow(db, sql, args, timer.end(start));
+        }
+        return c;
+    }
+
+    private static long insert(SQLiteDatabase db, String metric, String table, ContentValues values) {
+        Metrics.Timer timer = Metrics.timer(metric);
+        long start = timer.begin();
+        try {
+            return db.insert(table, null, values);
+        } finally {
+            timer.end(start);
+        }
+    }
+
+    private static int update(SQLiteDatabase db, String metric, String table, ContentValues values,
+                              String where, String[] args) {
+        Metrics.Timer timer = Metrics.timer(metric);
+        long start = timer.begin();
+        try {
+            return db.update(table, values, where, args);
+        } finally {
+            timer.end(start);
+        }
+    }
+
+    private static int delete(SQLiteDatabase db, String metric, String table, String where, String[] args) {
+        Metrics.Timer timer = Metrics.timer(metric);
+        long start = timer.begin();
+        try {
+            return db.delete(table, where, args);
+        } finally {
+            timer.end(start);
+        }
+    }
+
+    // Records a statement that took at least the slow-query threshold, with its plan.
+    // Also logged with: adb shell setprop log.tag.DatabaseHelper DEBUG
+    private static void logIfSlow(SQLiteDatabase db, String sql, String[] args, long nanos) {
+        SlowQueryLog log = Metrics.slowQueries();
+        if (!log.isSlow(nanos)) return;
+        String shape = SlowQueryLog.argShape(args);
+        String plan = explain(db, sql, args);
+        log.record(sql, shape, nanos, plan);
+        SLOW_QUERIES.increment();
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, String.format(Locale.US, "Slow query (%.2f ms): %s %s%n%s", nanos / 1e6, sql, shape, plan));
+        }
+    }
+
+    // EXPLAIN QUERY PLAN for sql with the same arguments, one step per line
+    private static String explain(SQLiteDatabase db, String sql, String... args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) {
+                if (plan.length() > 0) plan.append('\n');
+                plan.append(c.getString(detail));
+            }
+        } catch (SQLException e) {
+            return "(no plan: " + e.getMessage() + ")";
+        }
+        return plan.toString();
+    }
+
+    // Returns the compiled statement for sql, compiling it the first time it is asked for
+    private SQLiteStatement statement(String sql) {
+        SQLiteDatabase db = getReadableDatabase();
+        synchronized (statements) {
+            SQLiteStatement st = statements.get(sql);
+            if (st == null) {
+                st = db.compileStatement(sql);
+                statements.put(sql, st);
+            }
+            return st;
+        }
     }
 
     // Checks if a column exists in a table (helps prevent crashes when upgrading)
@@ -294,6 +1040,11 @@ public class DatabaseHelper extends SQLiteOpenHelper implements AutoCloseable {
         return s == null ? null : s.trim();
     }
 
+    // Bound arguments can't be null
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
     // Trims and converts to lowercase (used for emails)
     private static String trimLower(String s) {
         return s == null ? null : s.trim().toLowerCase();
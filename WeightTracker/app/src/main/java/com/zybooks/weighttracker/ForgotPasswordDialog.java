@@ -66,16 +66,20 @@ public class ForgotPasswordDialog extends DialogFragment {
                 return;
             }
 
-            // Opens database and searches for a username linked to this email
-            try (DatabaseHelper db = new DatabaseHelper(requireContext())) {
-                String uname = db.getUsernameByEmail(email);
+            // Searches the shared repository for a username linked to this email,
+            // then its stored security question (both in the background)
+            WeightRepository repo = WeightRepository.get(requireContext());
+            repo.submit(this, () -> {
+                String uname = repo.getUsernameByEmail(email);
+                String q = uname == null ? null : repo.getSecurityQuestion(uname);
+                return new String[]{uname, q};
+            }, found -> {
+                String uname = found[0];
+                String q = found[1];
                 if (uname == null) {
                     showErr(tvError, getString(R.string.error_email_not_found));
                     return;
                 }
-
-                // Fetches the stored security question for that username
-                String q = db.getSecurityQuestion(uname);
                 if (TextUtils.isEmpty(q)) {
                     showErr(tvError, getString(R.string.error_no_security_question));
                     return;
@@ -86,7 +90,7 @@ public class ForgotPasswordDialog extends DialogFragment {
                 tvQuestion.setText(q);
                 hide(sectionEmail);
                 show(sectionQuestion);
-            }
+            });
         });
 
         // === Step 2: verify security answer ===
@@ -105,10 +109,11 @@ public class ForgotPasswordDialog extends DialogFragment {
                 return;
             }
 
-            // Compares answer entered to the one stored in the database
-            try (DatabaseHelper db = new DatabaseHelper(requireContext())) {
-                String stored = db.getSecurityAnswer(currentUsername);
-                if (!entered.equalsIgnoreCase(stored)) {
+            // Checks the answer against the stored hash (in the background; hashing is slow on purpose)
+            WeightRepository repo = WeightRepository.get(requireContext());
+            String uname = currentUsername;
+            repo.submit(this, () -> repo.checkSecurityAnswer(uname, entered), matches -> {
+                if (!matches) {
                     showErr(tvError, getString(R.string.error_bad_security_answer));
                     return;
                 }
@@ -116,7 +121,7 @@ public class ForgotPasswordDialog extends DialogFragment {
                 // Answer is correct → move to reset password screen
                 hide(sectionQuestion);
                 show(sectionReset);
-            }
+            });
         });
 
         // === Step 3: reset password ===
@@ -144,15 +149,16 @@ public class ForgotPasswordDialog extends DialogFragment {
             }
 
             // Updates password in the database if all checks pass
-            try (DatabaseHelper db = new DatabaseHelper(requireContext())) {
-                boolean ok = db.updatePassword(currentUsername, p1);
+            WeightRepository repo = WeightRepository.get(requireContext());
+            String uname = currentUsername;
+            repo.submit(this, () -> repo.updatePassword(uname, p1), ok -> {
                 if (ok) {
                     Toast.makeText(requireContext(), R.string.password_updated, Toast.LENGTH_SHORT).show();
                     dismiss();
                 } else {
                     showErr(tvError, getString(R.string.update_failed));
                 }
-            }
+            });
         });
 
         return dlg;
@@ -54,9 +54,9 @@ public class ForgotUsernameDialog extends DialogFragment {
                 return;
             }
 
-            // Open the database helper and try to find a username for this email
-            try (DatabaseHelper db = new DatabaseHelper(requireContext())) {
-                String username = db.getUsernameByEmail(email);
+            // Ask the shared repository for a username linked to this email (in the background)
+            WeightRepository repo = WeightRepository.get(requireContext());
+            repo.submit(this, () -> repo.getUsernameByEmail(email), username -> {
                 if (username == null) {
                     // No match found for that email
                     tvError.setText(getString(R.string.error_email_not_found));
@@ -67,7 +67,7 @@ public class ForgotUsernameDialog extends DialogFragment {
                 // Show the found username
                 tvResult.setText(getString(R.string.username_is_label, username));
                 tvResult.setVisibility(View.VISIBLE);
-            }
+            });
         });
 
         return dlg;
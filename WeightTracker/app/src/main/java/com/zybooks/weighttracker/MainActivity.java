@@ -1,8 +1,8 @@
 package com.zybooks.weighttracker;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Trace;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.EditText;
@@ -15,19 +15,41 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+// Launcher screen. A returning user (saved session) goes straight to the tracker: the session is
+// checked before anything is inflated, so they never pay for a login screen they won't see.
+// Both paths are wrapped in trace sections ("MainActivity.*") for startup traces.
 public class MainActivity extends AppCompatActivity {
 
     // input fields and error text
     private EditText usernameEt, passwordEt;
     private TextView errorTv;
 
-    // local storage for login sessions
-    private SharedPreferences prefs;
-    private DatabaseHelper db;
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+
+        // skip login if already logged in (nothing inflated, database not touched)
+        Trace.beginSection("MainActivity.resolveSession");
+        try {
+            if (Session.get(this).hasSavedUser()) {
+                startActivity(new Intent(this, TrackerActivity.class));
+                finish();
+                return;
+            }
+        } finally {
+            Trace.endSection();
+        }
+
+        Trace.beginSection("MainActivity.showLogin");
+        try {
+            showLogin();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    // Login screen for users without a session
+    private void showLogin() {
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main);
 
@@ -43,10 +65,6 @@ public class MainActivity extends AppCompatActivity {
         passwordEt = findViewById(R.id.etPassword);
         errorTv = findViewById(R.id.tvLoginError);
 
-        // create or open the session storage file
-        prefs = getSharedPreferences("session", MODE_PRIVATE);
-        db = new DatabaseHelper(this);
-
         // If user sent back from SmsActivity with a username, prefill and nudge to log in
         String prefill = getIntent().getStringExtra("prefill_username");
         if (prefill != null && !prefill.isEmpty()) {
@@ -54,13 +72,6 @@ public class MainActivity extends AppCompatActivity {
             passwordEt.requestFocus();
             Toast.makeText(this, "Account created. Log in with your new password.", Toast.LENGTH_SHORT).show();
         }
-
-        // skip login if already logged in
-        long userId = prefs.getLong("userId", -1);
-        if (userId > 0) {
-            startActivity(new Intent(this, TrackerActivity.class));
-            finish();
-        }
     }
 
     // Login button
@@ -74,14 +85,17 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        long userId = db.authenticate(u, p);
-        if (userId > 0) {
-            prefs.edit().putLong("userId", userId).apply();
-            startActivity(new Intent(this, TrackerActivity.class));
-            finish();
-        } else {
-            showError(getString(R.string.error_invalid_login));
-        }
+        // password check runs off the main thread; the result comes back here
+        WeightRepository repo = WeightRepository.get(this);
+        repo.submit(this, () -> repo.authenticate(u, p), userId -> {
+            if (userId > 0) {
+                Session.get(this).logIn(userId);
+                startActivity(new Intent(this, TrackerActivity.class));
+                finish();
+            } else {
+                showError(getString(R.string.error_invalid_login));
+            }
+        });
     }
 
     // Create Account button
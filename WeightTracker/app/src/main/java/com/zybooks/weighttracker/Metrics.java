@@ -0,0 +1,73 @@
+package com.zybooks.weighttracker;
+
+import android.os.Trace;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// The app's metrics: one MetricsRegistry for the process, plus timers that also mark a trace
+// section, so the same name shows up in Perfetto/systrace captures and in the in-app numbers.
+// Keep a Timer in a static final field and use it like Trace.beginSection:
+//
+//   long start = T_QUERY.begin();
+//   try { ... } finally { T_QUERY.end(start); }
+//
+// begin() and end() must run on the same thread (trace sections nest per thread). Timers are
+// cached by name, so shared helpers can also look one up per call (DatabaseHelper does).
+//
+// Also holds the slow-query log DatabaseHelper writes to (see slowQueries).
+public final class Metrics {
+
+    // Queries at or over a frame (60 Hz) are worth a look even off the main thread
+    private static final long SLOW_QUERY_MS = 16;
+    private static final int SLOW_QUERY_CAPACITY = 64;
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+    private static final ConcurrentHashMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final SlowQueryLog SLOW_QUERIES =
+            new SlowQueryLog(SLOW_QUERY_CAPACITY, TimeUnit.MILLISECONDS.toNanos(SLOW_QUERY_MS));
+
+    public static final class Timer {
+        private final String name;
+        private final LatencyHistogram histogram;
+
+        private Timer(String name) {
+            this.name = name;
+            this.histogram = REGISTRY.timer(name);
+        }
+
+        public long begin() {
+            Trace.beginSection(name);
+            return System.nanoTime();
+        }
+
+        // Returns the elapsed nanos
+        public long end(long start) {
+            long nanos = System.nanoTime() - start;
+            histogram.record(nanos);
+            Trace.endSection();
+            return nanos;
+        }
+    }
+
+    private Metrics() { }
+
+    public static Timer timer(String name) {
+        Timer t = TIMERS.get(name);
+        return t != null ? t : TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    public static LongAdder counter(String name) {
+        return REGISTRY.counter(name);
+    }
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    // Newest slow database statements with their plans; change the threshold with setThresholdNanos
+    public static SlowQueryLog slowQueries() {
+        return SLOW_QUERIES;
+    }
+}
@@ -0,0 +1,134 @@
+package com.zybooks.weighttracker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.widget.AppCompatTextView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Debug overlay with the live numbers from Metrics: calls, p50 and p99 per timer, slowest total first.
+// Starts as a small chip in the corner; tap it to open or close the table, long-press to save a
+// JSON snapshot and the slow-query log to the app's external files
+// (adb pull /sdcard/Android/data/<package>/files/metrics/).
+// Refreshes once a second while open.
+public final class MetricsOverlay extends AppCompatTextView {
+
+    private static final String TAG = "MetricsOverlay";
+    private static final long REFRESH_MS = 1_000;
+    private static final int MAX_ROWS = 14;
+
+    private boolean open;
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            if (!open) return;
+            setText(table());
+            postDelayed(this, REFRESH_MS);
+        }
+    };
+
+    // Adds the overlay in the bottom corner of an activity's content
+    public static void attach(@NonNull Activity activity) {
+        FrameLayout content = activity.findViewById(android.R.id.content);
+        FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.BOTTOM | Gravity.START);
+        content.addView(new MetricsOverlay(activity), lp);
+    }
+
+    private MetricsOverlay(Context context) {
+        super(context);
+        int pad = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 6,
+                context.getResources().getDisplayMetrics());
+        setPadding(pad, pad, pad, pad);
+        setTypeface(Typeface.MONOSPACE);
+        setTextSize(TypedValue.COMPLEX_UNIT_SP, 10);
+        setTextColor(Color.WHITE);
+        setBackgroundColor(0xB0000000);
+        setText("metrics");
+        setOnClickListener(v -> toggle());
+        setOnLongClickListener(v -> {
+            dump();
+            return true;
+        });
+    }
+
+    private void toggle() {
+        open = !open;
+        removeCallbacks(refresh);
+        if (open) refresh.run();
+        else setText("metrics");
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(refresh);
+        super.onDetachedFromWindow();
+    }
+
+    private static String table() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.US, "%-24s %6s %8s %8s",
+                "timer", "calls", "p50 ms", "p99 ms"));
+        List<MetricsRegistry.TimerSnapshot> timers = Metrics.registry().timers();
+        for (int i = 0; i < timers.size() && i < MAX_ROWS; i++) {
+            MetricsRegistry.TimerSnapshot t = timers.get(i);
+            sb.append(String.format(Locale.US, "\n%-24s %6d %8.2f %8.2f",
+                    t.name, t.count, t.p50Nanos / 1e6, t.p99Nanos / 1e6));
+        }
+        for (Map.Entry<String, Long> c : Metrics.registry().counters().entrySet()) {
+            sb.append(String.format(Locale.US, "\n%-24s %6d", c.getKey(), c.getValue()));
+        }
+        return sb.toString();
+    }
+
+    // Writes the snapshot off the main thread and toasts where it went
+    private void dump() {
+        Context app = getContext().getApplicationContext();
+        long now = System.currentTimeMillis();
+        String json = Metrics.registry().toJson(now);
+        StringBuilder slow = new StringBuilder();
+        for (SlowQueryLog.Entry e : Metrics.slowQueries().entries()) slow.append(e).append("\n\n");
+        new Thread(() -> {
+            String message;
+            try {
+                File dir = app.getExternalFilesDir("metrics");
+                if (dir == null) throw new IOException("external storage unavailable");
+                File file = new File(dir, "metrics-" + now + ".json");
+                write(file, json);
+                write(new File(dir, "slow-queries-" + now + ".txt"), slow.toString());
+                message = "Saved " + file.getAbsolutePath();
+                Log.i(TAG, message);
+            } catch (IOException e) {
+                message = "Couldn't save metrics: " + e.getMessage();
+                Log.w(TAG, "Metrics dump failed", e);
+            }
+            String shown = message;
+            // the overlay may be gone by now (screen closed), so not View.post
+            new Handler(Looper.getMainLooper()).post(() -> Toast.makeText(app, shown, Toast.LENGTH_LONG).show());
+        }, "metrics-dump").start();
+    }
+
+    private static void write(File file, String text) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -19,6 +19,10 @@ import androidx.fragment.app.DialogFragment;
 // Dialog that handles new account creation for the app
 public class RegisterDialog extends DialogFragment {
 
+    // Results of the background create step besides a new user id
+    private static final long USERNAME_TAKEN = -2;
+    private static final long EMAIL_TAKEN = -3;
+
     @NonNull
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
@@ -91,20 +95,23 @@ public class RegisterDialog extends DialogFragment {
                 return;
             }
 
-            // Save new user to the database (using try-with-resources for safety)
-            try (DatabaseHelper db = new DatabaseHelper(requireContext())) {
-                // Check for duplicates before creating
-                if (db.usernameExists(user)) {
+            // Save new user through the shared repository (duplicate checks + insert run in the background)
+            WeightRepository repo = WeightRepository.get(requireContext());
+            btnReg.setEnabled(false); // no double submits while the insert is running
+            repo.submit(this, () -> {
+                if (repo.usernameExists(user)) return USERNAME_TAKEN;
+                if (repo.emailExists(email)) return EMAIL_TAKEN;
+                return repo.createUser(first, last, email, user, p1, q, a);
+            }, id -> {
+                btnReg.setEnabled(true);
+                if (id == USERNAME_TAKEN) {
                     showErr.accept("Username already exists");
                     return;
                 }
-                if (db.emailExists(email)) {
+                if (id == EMAIL_TAKEN) {
                     showErr.accept("Email already exists");
                     return;
                 }
-
-                // Insert new user record
-                long id = db.createUserFull(first, last, email, user, p1, q, a);
                 if (id > 0) {
                     Toast.makeText(requireContext(), "Account created", Toast.LENGTH_SHORT).show();
 
@@ -118,7 +125,7 @@ public class RegisterDialog extends DialogFragment {
                 } else {
                     showErr.accept("Could not create account");
                 }
-            }
+            });
         });
 
         return dlg;
@@ -0,0 +1,76 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.StrictMode;
+
+import androidx.lifecycle.LifecycleOwner;
+
+// Who is logged in. The user id saved at login is only a claim until loadProfile() has checked it
+// against the database, which happens once per process; after that the profile (name, goal,
+// created_at) comes from WeightRepository's memory cache, and a logout drops both.
+// Main thread only.
+public final class Session {
+
+    private static final String PREFS = "session";
+    private static final String KEY_USER_ID = "userId";
+
+    private final Context app;
+    private final SharedPreferences prefs;
+
+    Session(Context context) {
+        this.app = context.getApplicationContext();
+        // Created at startup on the main thread: opening the prefs may create their folder, and the
+        // first read waits for the file. Both happen here, once; after that the values are in memory.
+        StrictMode.ThreadPolicy policy = StrictMode.allowThreadDiskWrites();
+        try {
+            this.prefs = app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+            prefs.getLong(KEY_USER_ID, -1);
+        } finally {
+            StrictMode.setThreadPolicy(policy);
+        }
+    }
+
+    // The shared instance for any Activity, Fragment or Context in this app
+    public static Session get(Context context) {
+        return ((WeightTrackerApp) context.getApplicationContext()).getSession();
+    }
+
+    // Saved user id, or -1 if nobody is logged in (not yet checked against the database)
+    public long getUserId() {
+        return prefs.getLong(KEY_USER_ID, -1);
+    }
+
+    public boolean hasSavedUser() {
+        return getUserId() > 0;
+    }
+
+    public void logIn(long userId) {
+        repository().clearUserCaches();
+        prefs.edit().putLong(KEY_USER_ID, userId).apply();
+    }
+
+    public void logOut() {
+        prefs.edit().clear().apply();
+        repository().clearUserCaches();
+    }
+
+    // The logged-in user's profile: from memory when it's cached, otherwise checked and loaded in the
+    // background. Gets null (and the session is cleared) if the saved user no longer exists.
+    public void loadProfile(LifecycleOwner owner, WeightRepository.Callback<UserProfile> onLoaded) {
+        long userId = getUserId();
+        if (userId <= 0) {
+            onLoaded.onResult(null);
+            return;
+        }
+        repository().loadProfile(owner, userId, profile -> {
+            if (profile == null && getUserId() == userId) logOut();
+            onLoaded.onResult(profile);
+        });
+    }
+
+    // Looked up on use, so checking for a saved user doesn't build the repository
+    private WeightRepository repository() {
+        return WeightRepository.get(app);
+    }
+}
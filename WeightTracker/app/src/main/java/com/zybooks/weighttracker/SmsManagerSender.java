@@ -0,0 +1,57 @@
+package com.zybooks.weighttracker;
+
+import android.Manifest;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.telephony.SmsManager;
+
+import androidx.core.content.ContextCompat;
+
+// Sends outbox alerts through the platform SmsManager. The sent and delivered reports come back
+// as broadcasts to SmsResultReceiver, tagged with the alert id.
+final class SmsManagerSender implements SmsSender {
+
+    private final Context context;
+
+    SmsManagerSender(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public boolean canSend() {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.SEND_SMS)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    @Override
+    public void send(long alertId, String phone, String body) {
+        // Sent only needs the result code, so it can be immutable. The delivery report's PDU is
+        // filled in by the system, which an immutable PendingIntent would drop.
+        int deliveredFlags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? PendingIntent.FLAG_MUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
+                : PendingIntent.FLAG_UPDATE_CURRENT;
+        PendingIntent sent = report(SmsResultReceiver.ACTION_SENT, alertId,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+        PendingIntent delivered = report(SmsResultReceiver.ACTION_DELIVERED, alertId, deliveredFlags);
+        smsManager().sendTextMessage(phone, null, body, sent, delivered);
+    }
+
+    // One PendingIntent per alert and report type (the request code keeps them apart)
+    private PendingIntent report(String action, long alertId, int flags) {
+        Intent intent = new Intent(action, null, context, SmsResultReceiver.class)
+                .putExtra(SmsResultReceiver.EXTRA_ALERT_ID, alertId);
+        int requestCode = (int) (alertId * 2 + (SmsResultReceiver.ACTION_SENT.equals(action) ? 0 : 1));
+        return PendingIntent.getBroadcast(context, requestCode, intent, flags);
+    }
+
+    @SuppressWarnings("deprecation") // getDefault is the only option below API 31
+    private SmsManager smsManager() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return context.getSystemService(SmsManager.class);
+        }
+        return SmsManager.getDefault();
+    }
+}
@@ -0,0 +1,321 @@
+package com.zybooks.weighttracker;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Persistent queue of SMS alerts. Screens only enqueue (a database insert); one background thread
+// hands due alerts to the SmsSender and records what the sent/delivered reports say.
+//
+// Each alert carries a dedupe key, so asking twice for the same alert (say, for the same goal
+// crossing) queues it once. A send that fails, or never reports back, is retried with exponential
+// backoff until MAX_ATTEMPTS; after that the alert is marked failed and stays for inspection.
+// Alerts wait, without using up attempts, while the sender can't send (no permission yet).
+//
+// Nothing is sent until start(). Tests skip it and drive drain() and the record methods directly.
+final class SmsOutbox {
+
+    private static final String TAG = "SmsOutbox";
+
+    // Alert states
+    static final int STATE_PENDING   = 0; // waiting for next_attempt_at
+    static final int STATE_SENDING   = 1; // handed to the sender; next_attempt_at is the report deadline
+    static final int STATE_SENT      = 2;
+    static final int STATE_DELIVERED = 3;
+    static final int STATE_FAILED    = 4; // gave up
+
+    static final String TABLE_OUTBOX   = "sms_outbox";
+    static final String COL_ID         = "_id";
+    static final String COL_USER       = "user_id";
+    static final String COL_KEY        = "dedupe_key";
+    static final String COL_PHONE      = "phone";
+    static final String COL_BODY       = "body";
+    static final String COL_STATE      = "state";
+    static final String COL_ATTEMPTS   = "attempts";
+    static final String COL_NEXT_AT    = "next_attempt_at"; // epoch millis
+    static final String COL_CREATED_AT = "created_at";      // epoch millis
+    static final String COL_ERROR      = "last_error";
+
+    // First retry after 30 s, doubling up to an hour between tries
+    static final long BASE_BACKOFF_MS = 30_000;
+    static final long MAX_BACKOFF_MS = 60 * 60_000;
+    static final int MAX_ATTEMPTS = 6;
+    // A send with no report after this long (e.g. the process died mid-send) counts as failed
+    static final long SEND_TIMEOUT_MS = 10 * 60_000;
+    // Leaves app startup alone; leftovers from a previous run can wait a few seconds
+    private static final long START_DELAY_MS = 5_000;
+
+    private static final String SQL_DUE = "SELECT " + COL_ID + ", " + COL_PHONE + ", " + COL_BODY +
+            " FROM " + TABLE_OUTBOX +
+            " WHERE " + COL_STATE + "=" + STATE_PENDING + " AND " + COL_NEXT_AT + " <= ?" +
+            " ORDER BY " + COL_NEXT_AT + ", " + COL_ID;
+    private static final String SQL_TIMED_OUT = "SELECT " + COL_ID + " FROM " + TABLE_OUTBOX +
+            " WHERE " + COL_STATE + "=" + STATE_SENDING + " AND " + COL_NEXT_AT + " <= ?";
+    private static final String SQL_NEXT_DUE = "SELECT MIN(" + COL_NEXT_AT + ") FROM " + TABLE_OUTBOX +
+            " WHERE " + COL_STATE + " IN (?, ?)";
+
+    private final DatabaseHelper helper;
+    private final SmsSender sender;
+    private final LongSupplier clock;
+    private final ScheduledThreadPoolExecutor worker;
+
+    // The queued drain and when it runs (guarded by this)
+    private boolean started;
+    private ScheduledFuture<?> scheduled;
+    private long scheduledAt;
+
+    SmsOutbox(DatabaseHelper helper, SmsSender sender) {
+        this(helper, sender, System::currentTimeMillis);
+    }
+
+    // Lets tests move time forward by hand
+    SmsOutbox(DatabaseHelper helper, SmsSender sender, LongSupplier clock) {
+        this.helper = helper;
+        this.sender = sender;
+        this.clock = clock;
+        this.worker = new ScheduledThreadPoolExecutor(1, work -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            work.run();
+        }, "sms-outbox"));
+        worker.setKeepAliveTime(30, TimeUnit.SECONDS);
+        worker.allowCoreThreadTimeOut(true);
+    }
+
+    // Table and due-alert index (new installs and the version 7 upgrade)
+    static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " (" +
+                COL_ID         + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_USER       + " INTEGER NOT NULL, " +
+                COL_KEY        + " TEXT NOT NULL UNIQUE, " +
+                COL_PHONE      + " TEXT NOT NULL, " +
+                COL_BODY       + " TEXT NOT NULL, " +
+                COL_STATE      + " INTEGER NOT NULL DEFAULT " + STATE_PENDING + ", " +
+                COL_ATTEMPTS   + " INTEGER NOT NULL DEFAULT 0, " +
+                COL_NEXT_AT    + " INTEGER NOT NULL, " +
+                COL_CREATED_AT + " INTEGER NOT NULL, " +
+                COL_ERROR      + " TEXT)");
+        db.execSQL("CREATE INDEX idx_sms_outbox_due ON " + TABLE_OUTBOX + "(" +
+                COL_STATE + ", " + COL_NEXT_AT + ")");
+    }
+
+    // Starts sending: picks up anything left over from the last run, then every new alert
+    // (later calls do nothing)
+    void start() {
+        synchronized (this) {
+            if (started) return;
+            started = true;
+        }
+        schedule(START_DELAY_MS);
+    }
+
+    // Drain now, e.g. once the SMS permission has been granted
+    public void kick() {
+        schedule(0);
+    }
+
+    // Any thread, blocks on disk. Queues an alert unless one with the same dedupe key was queued
+    // before (whatever became of it); returns true if this call queued it.
+    public boolean enqueue(long userId, String dedupeKey, String phone, String body) {
+        long now = clock.getAsLong();
+        ContentValues v = new ContentValues();
+        v.put(COL_USER, userId);
+        v.put(COL_KEY, dedupeKey);
+        v.put(COL_PHONE, phone);
+        v.put(COL_BODY, body);
+        v.put(COL_NEXT_AT, now);
+        v.put(COL_CREATED_AT, now);
+        long id = helper.getWritableDatabase().insertWithOnConflict(TABLE_OUTBOX, null, v,
+                SQLiteDatabase.CONFLICT_IGNORE);
+        if (id == -1) return false;
+        kick();
+        return true;
+    }
+
+    // Sent report for an alert (from SmsResultReceiver); done runs once it's recorded
+    public void onSendResult(long alertId, boolean ok, String error, Runnable done) {
+        worker.execute(() -> {
+            try {
+                recordSendResult(alertId, ok, error);
+            } finally {
+                done.run();
+            }
+        });
+    }
+
+    // Delivery report for an alert (from SmsResultReceiver); done runs once it's recorded
+    public void onDeliveryResult(long alertId, boolean ok, String error, Runnable done) {
+        worker.execute(() -> {
+            try {
+                recordDeliveryResult(alertId, ok, error);
+            } finally {
+                done.run();
+            }
+        });
+    }
+
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // === Worker thread (or a test's own thread) ===
+
+    // Times out silent sends, hands every due alert to the sender, and schedules the next pass
+    void drain() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long now = clock.getAsLong();
+        String[] nowArg = {String.valueOf(now)};
+
+        for (long id : ids(db.rawQuery(SQL_TIMED_OUT, nowArg))) {
+            recordFailure(db, id, "no report from the sender", now);
+        }
+
+        if (sender.canSend()) {
+            // Read every due row and close the cursor before claiming any of them: claiming takes a
+            // row out of the query's WHERE set, and a cursor refilling its window past the first
+            // page would re-run the query at an offset and skip pending alerts.
+            long[] ids;
+            String[] phones;
+            String[] bodies;
+            try (Cursor c = db.rawQuery(SQL_DUE, nowArg)) {
+                int n = c.getCount();
+                ids = new long[n];
+                phones = new String[n];
+                bodies = new String[n];
+                for (int i = 0; i < n && c.moveToNext(); i++) {
+                    ids[i] = c.getLong(0);
+                    phones[i] = c.getString(1);
+                    bodies[i] = c.getString(2);
+                }
+            }
+            for (int i = 0; i < ids.length; i++) {
+                long id = ids[i];
+                // claim it first so a report that arrives during send() finds it in SENDING
+                db.execSQL("UPDATE " + TABLE_OUTBOX + " SET " + COL_STATE + "=" + STATE_SENDING + ", " +
+                        COL_ATTEMPTS + "=" + COL_ATTEMPTS + "+1, " + COL_NEXT_AT + "=? WHERE " + COL_ID + "=?",
+                        new Object[]{now + SEND_TIMEOUT_MS, id});
+                try {
+                    sender.send(id, phones[i], bodies[i]);
+                } catch (RuntimeException e) {
+                    recordFailure(db, id, e.toString(), now);
+                }
+            }
+        }
+
+        scheduleNextDue(db, now);
+    }
+
+    void recordSendResult(long alertId, boolean ok, String error) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        if (stateOf(db, alertId) != STATE_SENDING) return; // late report for a send that already timed out
+        if (ok) {
+            setState(db, alertId, STATE_SENT, null);
+        } else {
+            long now = clock.getAsLong();
+            recordFailure(db, alertId, error, now);
+            scheduleNextDue(db, now);
+        }
+    }
+
+    void recordDeliveryResult(long alertId, boolean ok, String error) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        int state = stateOf(db, alertId);
+        // the delivery report can beat the sent report
+        if (state != STATE_SENDING && state != STATE_SENT) return;
+        if (ok) {
+            setState(db, alertId, STATE_DELIVERED, null);
+        } else {
+            long now = clock.getAsLong();
+            recordFailure(db, alertId, error, now);
+            scheduleNextDue(db, now);
+        }
+    }
+
+    // Delay before retrying after the given number of attempts
+    static long backoff(int attempts) {
+        return Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(Math.max(attempts - 1, 0), 20));
+    }
+
+    // Back to pending with a backoff, or failed once the attempts run out
+    private void recordFailure(SQLiteDatabase db, long alertId, String error, long now) {
+        int attempts;
+        try (Cursor c = db.rawQuery("SELECT " + COL_ATTEMPTS + " FROM " + TABLE_OUTBOX +
+                " WHERE " + COL_ID + "=?", new String[]{String.valueOf(alertId)})) {
+            if (!c.moveToFirst()) return;
+            attempts = c.getInt(0);
+        }
+        if (attempts >= MAX_ATTEMPTS) {
+            setState(db, alertId, STATE_FAILED, error);
+            return;
+        }
+        ContentValues v = new ContentValues();
+        v.put(COL_STATE, STATE_PENDING);
+        v.put(COL_NEXT_AT, now + backoff(attempts));
+        v.put(COL_ERROR, error);
+        db.update(TABLE_OUTBOX, v, COL_ID + "=?", new String[]{String.valueOf(alertId)});
+    }
+
+    private static void setState(SQLiteDatabase db, long alertId, int state, String error) {
+        ContentValues v = new ContentValues();
+        v.put(COL_STATE, state);
+        if (error != null) v.put(COL_ERROR, error);
+        db.update(TABLE_OUTBOX, v, COL_ID + "=?", new String[]{String.valueOf(alertId)});
+    }
+
+    private static int stateOf(SQLiteDatabase db, long alertId) {
+        try (Cursor c = db.rawQuery("SELECT " + COL_STATE + " FROM " + TABLE_OUTBOX +
+                " WHERE " + COL_ID + "=?", new String[]{String.valueOf(alertId)})) {
+            return c.moveToFirst() ? c.getInt(0) : -1;
+        }
+    }
+
+    // Reads every id out of a one-column cursor and closes it (so the rows can be updated after)
+    private static long[] ids(Cursor c) {
+        try {
+            long[] out = new long[c.getCount()];
+            for (int i = 0; c.moveToNext(); i++) out[i] = c.getLong(0);
+            return out;
+        } finally {
+            c.close();
+        }
+    }
+
+    // Wakes up for the earliest retry or report deadline; pending alerts wait for kick() while
+    // the sender can't send
+    private void scheduleNextDue(SQLiteDatabase db, long now) {
+        int waiting = sender.canSend() ? STATE_PENDING : STATE_SENDING;
+        try (Cursor c = db.rawQuery(SQL_NEXT_DUE,
+                new String[]{String.valueOf(waiting), String.valueOf(STATE_SENDING)})) {
+            if (c.moveToFirst() && !c.isNull(0)) schedule(Math.max(0, c.getLong(0) - now));
+        }
+    }
+
+    // Queues a drain after delayMs unless one is already due by then
+    private synchronized void schedule(long delayMs) {
+        if (!started || worker.isShutdown()) return;
+        long at = clock.getAsLong() + delayMs;
+        if (scheduled != null && scheduledAt <= at) return;
+        if (scheduled != null) scheduled.cancel(false);
+        scheduledAt = at;
+        scheduled = worker.schedule(this::runDrain, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runDrain() {
+        synchronized (this) {
+            scheduled = null; // anything enqueued from here on needs a new pass
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // e.g. the disk is full; the alerts are still in the table, so try again later
+            Log.w(TAG, "Drain failed", e);
+            schedule(BASE_BACKOFF_MS);
+        }
+    }
+}
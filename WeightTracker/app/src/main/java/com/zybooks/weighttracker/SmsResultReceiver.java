@@ -0,0 +1,49 @@
+package com.zybooks.weighttracker;
+
+import android.app.Activity;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.telephony.SmsMessage;
+
+// Receives the sent/delivered reports for alerts handed out by SmsManagerSender and records them
+// in the outbox. The database write happens on the outbox thread; goAsync keeps the process
+// alive until it's done.
+public class SmsResultReceiver extends BroadcastReceiver {
+
+    static final String ACTION_SENT = "com.zybooks.weighttracker.SMS_SENT";
+    static final String ACTION_DELIVERED = "com.zybooks.weighttracker.SMS_DELIVERED";
+    static final String EXTRA_ALERT_ID = "alert_id";
+
+    // TP-Status values from the delivery report: below 0x20 delivered, 0x20-0x3F still trying
+    private static final int STATUS_TEMPORARY = 0x20;
+    private static final int STATUS_FAILED = 0x40;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        long alertId = intent.getLongExtra(EXTRA_ALERT_ID, -1);
+        if (alertId <= 0) return;
+        SmsOutbox outbox = WeightRepository.get(context).getSmsOutbox();
+
+        if (ACTION_SENT.equals(intent.getAction())) {
+            int code = getResultCode();
+            PendingResult pending = goAsync();
+            outbox.onSendResult(alertId, code == Activity.RESULT_OK, "send error " + code, pending::finish);
+        } else if (ACTION_DELIVERED.equals(intent.getAction())) {
+            int status = deliveryStatus(intent);
+            if (status >= STATUS_TEMPORARY && status < STATUS_FAILED) return; // another report follows
+            PendingResult pending = goAsync();
+            outbox.onDeliveryResult(alertId, status < STATUS_TEMPORARY, "delivery status " + status,
+                    pending::finish);
+        }
+    }
+
+    // Status from the report PDU; a missing or unreadable one counts as delivered, since the
+    // message did go out
+    private static int deliveryStatus(Intent intent) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        if (pdu == null) return 0;
+        SmsMessage report = SmsMessage.createFromPdu(pdu, intent.getStringExtra("format"));
+        return report == null ? 0 : report.getStatus();
+    }
+}
@@ -0,0 +1,15 @@
+package com.zybooks.weighttracker;
+
+// Transport behind SmsOutbox. The real one is SmsManagerSender; tests pass a fake that records
+// what would have gone out and reports results straight back to the outbox.
+public interface SmsSender {
+
+    // False while sending can't work at all (e.g. no SEND_SMS permission); the outbox then
+    // leaves its alerts queued without using up their attempts
+    boolean canSend();
+
+    // Hands one message to the transport. Returning normally only means it was accepted: the
+    // outcome comes back later through SmsOutbox.onSendResult / onDeliveryResult for alertId.
+    // Throwing counts as a failed attempt.
+    void send(long alertId, String phone, String body);
+}
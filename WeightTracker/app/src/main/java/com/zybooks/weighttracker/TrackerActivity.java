@@ -1,71 +1,100 @@
 package com.zybooks.weighttracker;
 
-import android.content.SharedPreferences;
 import android.content.Intent;
-import android.database.Cursor;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.os.Trace;
 import android.text.InputType;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
-import android.widget.LinearLayout;
-import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.Locale;
 
 // Screen that shows the weight list, lets the user add entries, and tracks goal status.
-// Also handles sending an SMS alert when the user reaches their goal (if permission is granted).
+// Asks for SMS permission when the user reaches their goal (the repository queues the alert).
 public class TrackerActivity extends AppCompatActivity {
 
-    // database + current user
-    private DatabaseHelper db;
+    // shared data access + current user
+    private WeightRepository repo;
+    private Session session;
     private long userId;
 
     // goal banner (two lines)
     private TextView tvGoalWeightLine;
     private TextView tvGoalStatusLine;
+    private TextView tvStatsLine;
 
-    // list container (used across methods)
-    private LinearLayout listContainer;
+    // recycled entry list (used across methods)
+    private RecyclerView rvWeights;
+    private WeightListAdapter adapter;
+    private WeightChartView chart;
 
-    // sms permission + demo number
+    // cached history (list, banner and stats all read from it) + goal weight (from the cached profile)
+    private WeightSeries series;
+    private double goal;
+
+    // sms permission
     private static final int REQ_SMS = 2001;
-    private static final String ALERT_NUMBER = "5551234567";
+
+    private static final Metrics.Timer T_GOAL_STATUS = Metrics.timer("ui.showGoalStatus");
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_tracker);
+        Trace.beginSection("TrackerActivity.onCreate");
+        try {
+            setUpScreen();
+        } finally {
+            Trace.endSection();
+        }
+    }
 
-        // open db and read session user id
-        db = new DatabaseHelper(this);
-        SharedPreferences prefs = getSharedPreferences("session", MODE_PRIVATE);
-        userId = prefs.getLong("userId", -1);
+    // Inflates the screen and starts the first loads (all database work is in the background)
+    private void setUpScreen() {
+        // shared repository and session user id (checked before inflating anything)
+        repo = WeightRepository.get(this);
+        session = Session.get(this);
+        userId = session.getUserId();
         if (userId <= 0) { finish(); return; } // guard: no session → exit to avoid null state
 
+        setContentView(R.layout.activity_tracker);
+
         // connect views
         tvGoalWeightLine = findViewById(R.id.tvGoalWeightLine);
         tvGoalStatusLine = findViewById(R.id.tvGoalStatusLine);
-        ScrollView scrollGrid = findViewById(R.id.scrollGrid);
+        tvStatsLine = findViewById(R.id.tvStatsLine);
+        rvWeights = findViewById(R.id.rvWeights);
+        chart = findViewById(R.id.chartWeights);
 
         // these can be local (only used in onCreate/listener)
         final EditText etWeight = findViewById(R.id.etWeight);
         final EditText etDate   = findViewById(R.id.etDate);
         Button btnAddEntry      = findViewById(R.id.btnAddEntry);
 
-        // list container is the first child of the ScrollView
-        listContainer = (LinearLayout) scrollGrid.getChildAt(0);
+        // one adapter for the life of the screen; edit/delete dialogs live here, not in each row
+        adapter = new WeightListAdapter(new WeightListAdapter.Listener() {
+            @Override
+            public void onEdit(long id, int day, double weight) { showEditDialog(id, day, weight); }
+
+            @Override
+            public void onDelete(long id) { confirmDelete(id); }
+        });
+        rvWeights.setLayoutManager(new LinearLayoutManager(this));
+        rvWeights.setAdapter(adapter);
 
         // allow decimal weight input (prevents integer-only keyboards)
         etWeight.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
 
-        // add button: validate -> insert -> refresh UI -> maybe trigger SMS if goal reached
+        // add button: validate -> insert (the cached series patches the list) -> banner
         btnAddEntry.setOnClickListener(v -> {
             String wStr = etWeight.getText().toString().trim();
             String dStr = etDate.getText().toString().trim();
@@ -73,73 +102,112 @@ public class TrackerActivity extends AppCompatActivity {
                 toast(getString(R.string.enter_weight_date));
                 return;
             }
+            int day = EpochDays.parse(dStr);
+            if (day == EpochDays.INVALID) {
+                toast(getString(R.string.enter_valid_date));
+                return;
+            }
+            double lbs;
             try {
-                double lbs = Double.parseDouble(wStr);
-                db.addWeight(userId, dStr, lbs);   // save entry
-                etWeight.setText("");              // clear fields
-                etDate.setText("");
-                renderList();                      // rebuild visible list
-                updateGoalStatus();                // refresh banner
-                maybeSendGoalReachedSms(lbs);      // try sms if goal reached
+                lbs = Double.parseDouble(wStr);
             } catch (NumberFormatException e) {
                 toast(getString(R.string.enter_valid_weight));
+                return;
+            }
+            // save entry in the background; by the time this runs the new row is already in the list
+            repo.submit(this, () -> repo.addWeight(userId, day, lbs), id -> {
+                etWeight.setText("");
+                etDate.setText("");
+                int pos = adapter.positionOf(id);
+                if (pos >= 0) rvWeights.scrollToPosition(pos);
+                showGoalStatus();
+            });
+        });
+
+        // initial UI: history and profile come from the shared caches (loaded once per process)
+        repo.loadSeries(this, userId, loaded -> {
+            series = loaded;
+            adapter.setSeries(loaded);
+            chart.setSeries(loaded);
+            showGoalStatus();
+            // the list and chart have real data now: marks "fully drawn" in startup traces and logcat
+            reportFullyDrawn();
+            // then send whatever alerts are still queued from the last run (after a short delay)
+            repo.getSmsOutbox().start();
+        });
+        session.loadProfile(this, profile -> {
+            if (profile == null) { // the saved user is gone (session already cleared)
+                backToLogin();
+                return;
             }
+            goal = profile.goal;
+            showGoalStatus();
         });
 
-        // initial UI
-        renderList();
-        updateGoalStatus();
+        // adds, edits, deletes and goal changes can all cross the goal; the repository works that out
+        repo.setGoalListener(this::onGoalCrossed);
+
+        // debug builds: live p50/p99 of the timed calls over the screen (tap to open, long-press to save)
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) MetricsOverlay.attach(this);
     }
 
-    // Rebuilds the list from database rows (newest first)
-    private void renderList() {
-        listContainer.removeAllViews();
-        try (Cursor c = db.getAllWeights(userId)) {
-            while (c.moveToNext()) {
-                long rowId = c.getLong(c.getColumnIndexOrThrow("_id"));
-                String date = c.getString(c.getColumnIndexOrThrow("entry_date"));
-                double lbs = c.getDouble(c.getColumnIndexOrThrow("weight_lbs"));
-                addRowView(rowId, lbs, date);
-            }
-        }
+    // The series outlives this screen, so stop it from holding on to the adapter and chart
+    @Override
+    protected void onDestroy() {
+        if (adapter != null) adapter.setSeries(null);
+        if (chart != null) chart.setSeries(null);
+        if (repo != null) repo.setGoalListener(null);
+        super.onDestroy();
     }
 
-    // Adds one row: weight | date | delete button
-    private void addRowView(long rowId, double lbs, String date) {
-        LinearLayout row = new LinearLayout(this);
-        row.setOrientation(LinearLayout.HORIZONTAL);
-        int pad = dp(8);
-        row.setPadding(0, pad, 0, pad);
-        row.setLayoutParams(new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.MATCH_PARENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT));
-
-        TextView tvWeight = new TextView(this);
-        tvWeight.setLayoutParams(weighted(1f));
-        tvWeight.setText(String.valueOf(lbs));
-
-        TextView tvDate = new TextView(this);
-        tvDate.setLayoutParams(weighted(1f));
-        tvDate.setText(date);
-
-        // Small delete button with a confirm dialog to avoid accidental removals
-        Button btnDelete = new Button(this, null, android.R.attr.buttonStyleSmall);
-        btnDelete.setText(getString(R.string.delete));
-        btnDelete.setOnClickListener(v -> new AlertDialog.Builder(this)
+    // Delete button on a row → confirm → delete (the series drops that row) → refresh the banner
+    private void confirmDelete(long rowId) {
+        new AlertDialog.Builder(this)
                 .setMessage(getString(R.string.delete_entry_q))
-                .setPositiveButton(getString(R.string.delete), (d, w) -> {
-                    db.deleteWeight(rowId);
-                    renderList();
-                    updateGoalStatus();
-                })
+                .setPositiveButton(getString(R.string.delete), (d, w) ->
+                        repo.submit(this, () -> repo.deleteWeight(userId, rowId), deleted -> showGoalStatus()))
                 .setNegativeButton(android.R.string.cancel, null)
-                .show());
+                .show();
+    }
 
-        row.addView(tvWeight);
-        row.addView(tvDate);
-        row.addView(btnDelete);
+    // Tapping a row → popup with its weight and date → save (the series moves/rebinds that row only)
+    private void showEditDialog(long rowId, int rowDay, double rowWeight) {
+        View dialogView = getLayoutInflater().inflate(R.layout.dialog_edit_entry, null);
+        EditText etEditWeight = dialogView.findViewById(R.id.etEditWeight);
+        EditText etEditDate = dialogView.findViewById(R.id.etEditDate);
+        Button btnSave = dialogView.findViewById(R.id.btnSaveEntry);
 
-        listContainer.addView(row);
+        AlertDialog dlg = new AlertDialog.Builder(this)
+                .setView(dialogView)
+                .create();
+
+        // Header: title + close X
+        TextView tvHeader = dialogView.findViewById(R.id.tvDialogTitle);
+        android.widget.ImageButton btnClose = dialogView.findViewById(R.id.btnCloseDialog);
+        if (tvHeader != null) tvHeader.setText(getString(R.string.edit_entry));
+        if (btnClose != null) btnClose.setOnClickListener(click -> dlg.dismiss());
+
+        etEditWeight.setText(String.valueOf(rowWeight));
+        etEditDate.setText(EpochDays.format(rowDay));
+
+        dlg.show();
+
+        btnSave.setOnClickListener(click -> {
+            int day = EpochDays.parse(etEditDate.getText().toString());
+            if (day == EpochDays.INVALID) {
+                toast(getString(R.string.enter_valid_date));
+                return;
+            }
+            double lbs;
+            try {
+                lbs = Double.parseDouble(etEditWeight.getText().toString().trim());
+            } catch (NumberFormatException e) {
+                toast(getString(R.string.enter_valid_weight));
+                return;
+            }
+            dlg.dismiss();
+            repo.submit(this, () -> repo.updateWeight(userId, rowId, day, lbs), updated -> showGoalStatus());
+        });
     }
 
     // Set Goal button → popup with one field and Set button
@@ -160,9 +228,8 @@ public class TrackerActivity extends AppCompatActivity {
         if (btnClose != null) btnClose.setOnClickListener(click -> dlg.dismiss());
 
         // Preload current goal for easy edits
-        double currentGoal = db.getGoalWeight(userId);
-        if (currentGoal > 0) {
-            input.setText(String.valueOf(currentGoal));
+        if (goal > 0) {
+            input.setText(String.valueOf(goal));
             input.setSelection(input.getText().length());
         }
 
@@ -173,21 +240,34 @@ public class TrackerActivity extends AppCompatActivity {
             String goalStr = input.getText().toString().trim();
             if (goalStr.isEmpty()) { toast(getString(R.string.enter_valid_number)); return; }
             try {
-                double goal = Double.parseDouble(goalStr);
-                db.setGoalWeight(userId, goal);
-                toast(getString(R.string.goal_updated_to, goal));
-                updateGoalStatus();
+                double newGoal = Double.parseDouble(goalStr);
                 dlg.dismiss();
+                repo.submit(this, () -> {
+                    repo.setGoalWeight(userId, newGoal);
+                    return null;
+                }, saved -> {
+                    goal = newGoal; // the cached profile was updated along with the database
+                    toast(getString(R.string.goal_updated_to, newGoal));
+                    showGoalStatus();
+                });
             } catch (NumberFormatException e) {
                 toast(getString(R.string.enter_valid_number));
             }
         });
     }
 
-    // Updates banner text (goal line + current/to-go line)
-    private void updateGoalStatus() {
-        double goal = db.getGoalWeight(userId);
+    // Updates banner text (goal line + current/to-go line + stats) from the goal and the cached
+    // series; no database work, so it runs right after every edit
+    private void showGoalStatus() {
+        long start = T_GOAL_STATUS.begin();
+        try {
+            renderGoalStatus();
+        } finally {
+            T_GOAL_STATUS.end(start);
+        }
+    }
 
+    private void renderGoalStatus() {
         if (goal <= 0) {
             tvGoalWeightLine.setText(getString(R.string.goal_not_set));
         } else {
@@ -195,37 +275,40 @@ public class TrackerActivity extends AppCompatActivity {
         }
 
         String statusText = getString(R.string.current_dash);
-        try (Cursor c = db.getAllWeights(userId)) {
-            if (c.moveToFirst()) {
-                double current = c.getDouble(c.getColumnIndexOrThrow("weight_lbs"));
-                if (goal > 0) {
-                    double diff = current - goal;
-                    String suffix = (diff > 0)
-                            ? String.format(Locale.getDefault(), getString(R.string.to_go_suffix), diff)
-                            : String.format(Locale.getDefault(), getString(R.string.past_goal_suffix), Math.abs(diff));
-                    statusText = getString(R.string.current_line, current) + suffix;
-                } else {
-                    statusText = getString(R.string.current_line, current);
-                }
+        if (series != null && series.size() > 0) {
+            double current = series.weightAt(series.size() - 1); // newest entry
+            if (goal > 0) {
+                double diff = current - goal;
+                String suffix = (diff > 0)
+                        ? String.format(Locale.getDefault(), getString(R.string.to_go_suffix), diff)
+                        : String.format(Locale.getDefault(), getString(R.string.past_goal_suffix), Math.abs(diff));
+                statusText = getString(R.string.current_line, current) + suffix;
+            } else {
+                statusText = getString(R.string.current_line, current);
             }
         }
         tvGoalStatusLine.setText(statusText);
-    }
 
-    // Checks if the new weight meets/beats the goal and handles permission flow for SMS
-    private void maybeSendGoalReachedSms(double newWeight) {
-        double goal = db.getGoalWeight(userId);
-        if (goal <= 0) return;        // no goal set, skip
-        if (newWeight > goal) return; // not at/under goal yet
+        // the saved stats row, loaded with the series and kept up to date by its edits
+        WeightStats stats = series == null ? null : series.getStats();
+        if (stats != null && stats.getCount() > 0) {
+            tvStatsLine.setText(getString(R.string.stats_line, stats.getMean(), stats.getMin(),
+                    stats.getMax(), stats.getTotalChange()));
+            tvStatsLine.setVisibility(View.VISIBLE);
+        } else {
+            tvStatsLine.setVisibility(View.GONE);
+        }
+    }
 
+    // Goal alert for this user: the repository has already queued the text; make sure it can go out
+    private void onGoalCrossed(long crossedUserId, boolean reached) {
+        if (crossedUserId != userId || !reached) return;
         int granted = androidx.core.content.ContextCompat.checkSelfPermission(
                 this, android.Manifest.permission.SEND_SMS);
-
         if (granted == android.content.pm.PackageManager.PERMISSION_GRANTED) {
-            // Permission is good → send the alert now
-            sendGoalSms(newWeight, goal);
+            toast("Goal reached! SMS alert queued.");
         } else {
-            // Ask for permission one time here; app still works if they say no
+            // Ask for permission; the alert waits in the outbox, and the app still works if they say no
             androidx.core.app.ActivityCompat.requestPermissions(
                     this,
                     new String[]{android.Manifest.permission.SEND_SMS},
@@ -234,15 +317,6 @@ public class TrackerActivity extends AppCompatActivity {
         }
     }
 
-    // Actually sends the SMS alert when the goal is reached
-    private void sendGoalSms(double current, double goal) {
-        String msg = String.format(java.util.Locale.getDefault(),
-                "Goal reached! Current: %.1f lb (goal %.1f lb).", current, goal);
-        android.telephony.SmsManager.getDefault().sendTextMessage(
-                ALERT_NUMBER, null, msg, null, null);
-        toast("SMS alert sent.");
-    }
-
     // Handles the user's choice on the permission popup
     @Override
     public void onRequestPermissionsResult(int requestCode,
@@ -252,19 +326,22 @@ public class TrackerActivity extends AppCompatActivity {
         if (requestCode == REQ_SMS) {
             if (grantResults.length > 0 &&
                     grantResults[0] == android.content.pm.PackageManager.PERMISSION_GRANTED) {
-                // Not auto-sending here, since we don't know the last weight entered
-                toast("SMS permission granted. Add a new entry to trigger alert.");
+                // Anything waiting in the outbox can go out now
+                repo.getSmsOutbox().kick();
+                toast("SMS permission granted. Queued alerts will be sent.");
             } else {
                 toast("SMS permission denied. App continues without SMS.");
             }
         }
     }
 
-    // Logs the user out and returns to the login screen
+    // Logs the user out (drops the cached profile and history too) and returns to the login screen
     public void onLogoutClick(View view) {
-        SharedPreferences prefs = getSharedPreferences("session", MODE_PRIVATE);
-        prefs.edit().clear().apply();
+        session.logOut();
+        backToLogin();
+    }
 
+    private void backToLogin() {
         Intent intent = new Intent(this, MainActivity.class);
         intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
         startActivity(intent);
@@ -272,19 +349,5 @@ public class TrackerActivity extends AppCompatActivity {
     }
 
     // helpers
-    @SuppressWarnings("SameParameterValue")
-    private LinearLayout.LayoutParams weighted(float w) {
-        LinearLayout.LayoutParams p = new LinearLayout.LayoutParams(
-                0, LinearLayout.LayoutParams.WRAP_CONTENT);
-        p.weight = w;
-        return p;
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private int dp(int d) {
-        float density = getResources().getDisplayMetrics().density;
-        return Math.round(d * density);
-    }
-
     private void toast(String m) { Toast.makeText(this, m, Toast.LENGTH_SHORT).show(); }
 }
\ No newline at end of file
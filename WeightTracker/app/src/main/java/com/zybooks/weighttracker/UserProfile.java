@@ -0,0 +1,27 @@
+package com.zybooks.weighttracker;
+
+// The logged-in user's account details, as cached by WeightRepository. Immutable: a goal change
+// swaps in a copy (withGoal), so anyone holding the old one never sees it change underneath them.
+public final class UserProfile {
+
+    public final long userId;
+    public final String username;
+    public final String firstName; // may be null
+    public final String lastName;  // may be null
+    public final double goal;      // 0 if none is set
+    public final long createdAt;   // epoch millis (0 for accounts from before it was recorded)
+
+    public UserProfile(long userId, String username, String firstName, String lastName,
+                       double goal, long createdAt) {
+        this.userId = userId;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.goal = goal;
+        this.createdAt = createdAt;
+    }
+
+    public UserProfile withGoal(double newGoal) {
+        return new UserProfile(userId, username, firstName, lastName, newGoal, createdAt);
+    }
+}
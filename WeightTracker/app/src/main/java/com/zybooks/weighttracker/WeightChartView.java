@@ -0,0 +1,248 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+// Weight-over-time line chart for the tracker screen. Drag to pan, pinch to zoom, double-tap to
+// show the whole history again.
+//
+// Draws at most about two points per horizontal pixel no matter how long the history is: the
+// visible range is downsampled with Lttb, whose per-level cache makes a pan or zoom only work out
+// the buckets it hasn't seen yet. onDraw doesn't allocate; the path and index buffer are reused
+// and only resized in onSizeChanged.
+public class WeightChartView extends View implements WeightSeries.Listener {
+
+    private static final int POINTS_PER_PIXEL = 2;
+    private static final float MIN_SPAN_DAYS = 7;
+    private static final Metrics.Timer T_DRAW = Metrics.timer("ui.chart.draw");
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint axisPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+    private int[] picked = new int[0];
+    private int lastPointCount; // points in the last frame (for the benchmark)
+
+    private final GestureDetector gestures;
+    private final ScaleGestureDetector scaleGestures;
+
+    private WeightSeries series;
+    private Lttb lttb;
+
+    // Viewport in epoch days; follows the whole history until the user pans or zooms
+    private boolean followAll = true;
+    private float startDay;
+    private float spanDays;
+
+    public WeightChartView(Context context) {
+        this(context, null);
+    }
+
+    public WeightChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(2 * density);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setColor(ContextCompat.getColor(context, R.color.colorPrimary));
+        axisPaint.setStrokeWidth(density);
+        axisPaint.setColor(ContextCompat.getColor(context, R.color.textSecondary));
+
+        gestures = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                panBy(dx);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                followAll = true;
+                invalidate();
+                return true;
+            }
+        });
+        scaleGestures = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX());
+                return true;
+            }
+        });
+    }
+
+    // Shows a series and redraws on its edits; pass null to let go of it (the series outlives the screen)
+    public void setSeries(WeightSeries series) {
+        if (this.series != null) this.series.removeListener(this);
+        this.series = series;
+        lttb = series == null ? null : new Lttb(series);
+        if (series != null) series.addListener(this);
+        followAll = true;
+        invalidate();
+    }
+
+    // === WeightSeries.Listener ===
+
+    @Override
+    public void onInserted(int index) {
+        lttb.ensureCapacity();
+        lttb.invalidateFrom(index);
+        invalidate();
+    }
+
+    @Override
+    public void onRemoved(int index) {
+        lttb.invalidateFrom(index);
+        invalidate();
+    }
+
+    @Override
+    public void onChanged(int index) {
+        lttb.invalidateFrom(index);
+        invalidate();
+    }
+
+    // === Gestures ===
+
+    @Override
+    @SuppressWarnings("ClickableViewAccessibility") // pan/zoom only; nothing to click
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleGestures.onTouchEvent(event);
+        handled |= gestures.onTouchEvent(event);
+        if (handled) getParent().requestDisallowInterceptTouchEvent(true);
+        return handled || super.onTouchEvent(event);
+    }
+
+    // Moves the viewport by a drag distance in pixels (positive = towards newer entries)
+    void panBy(float dxPixels) {
+        if (!hasPoints() || getWidth() == 0) return;
+        pinViewport();
+        startDay += dxPixels * spanDays / getWidth();
+        clampViewport();
+        invalidate();
+    }
+
+    // Zooms around an x position; factor > 1 zooms in
+    void zoomBy(float factor, float focusX) {
+        if (!hasPoints() || getWidth() == 0 || factor <= 0) return;
+        pinViewport();
+        float focusDay = startDay + focusX / getWidth() * spanDays;
+        spanDays /= factor;
+        clampViewport();
+        startDay = focusDay - focusX / getWidth() * spanDays;
+        clampViewport();
+        invalidate();
+    }
+
+    int getLastPointCount() {
+        return lastPointCount;
+    }
+
+    // === Drawing ===
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // worst case: every bucket of the chosen level, plus one on each side of the viewport
+        picked = new int[POINTS_PER_PIXEL * Math.max(w, 1) + 3];
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        long start = T_DRAW.begin();
+        try {
+            drawChart(canvas);
+        } finally {
+            T_DRAW.end(start);
+        }
+    }
+
+    private void drawChart(Canvas canvas) {
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        int right = getWidth() - getPaddingRight();
+        int bottom = getHeight() - getPaddingBottom();
+        canvas.drawLine(left, bottom, right, bottom, axisPaint);
+        lastPointCount = 0;
+        if (!hasPoints() || right <= left || bottom <= top) return;
+
+        if (followAll) fitAll();
+
+        // visible entries, plus one either side so the line runs off the edges
+        int n = series.size();
+        int from = Math.max(0, series.lowerBound((int) Math.floor(startDay)) - 1);
+        int to = Math.min(n, series.lowerBound((int) Math.ceil(startDay + spanDays) + 1) + 1);
+        int maxPoints = POINTS_PER_PIXEL * (right - left);
+        int level = lttb.levelFor(to - from, maxPoints);
+        int count = lttb.picks(level, from, to, picked);
+        if (count == 0) return;
+
+        double lo = Double.MAX_VALUE;
+        double hi = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            double y = series.weightAt(picked[i]);
+            lo = Math.min(lo, y);
+            hi = Math.max(hi, y);
+        }
+        double pad = Math.max(1, (hi - lo) * 0.1);
+        lo -= pad;
+        hi += pad;
+
+        float xScale = (right - left) / spanDays;
+        float yScale = (float) ((bottom - top) / (hi - lo));
+        path.rewind();
+        for (int i = 0; i < count; i++) {
+            int index = picked[i];
+            float x = left + (series.dayAt(index) - startDay) * xScale;
+            float y = bottom - (float) (series.weightAt(index) - lo) * yScale;
+            if (i == 0) path.moveTo(x, y);
+            else path.lineTo(x, y);
+        }
+        canvas.save();
+        canvas.clipRect(left, top, right, bottom);
+        canvas.drawPath(path, linePaint);
+        canvas.restore();
+        lastPointCount = count;
+    }
+
+    private boolean hasPoints() {
+        return series != null && series.size() > 0;
+    }
+
+    // Whole history, with a little room so a single entry still shows
+    private void fitAll() {
+        int first = series.dayAt(0);
+        int last = series.dayAt(series.size() - 1);
+        spanDays = Math.max(MIN_SPAN_DAYS, last - first);
+        startDay = last - spanDays;
+    }
+
+    // Stops following the whole history once the user takes over
+    private void pinViewport() {
+        if (followAll) fitAll();
+        followAll = false;
+    }
+
+    private void clampViewport() {
+        int first = series.dayAt(0);
+        int last = series.dayAt(series.size() - 1);
+        float maxSpan = Math.max(MIN_SPAN_DAYS, last - first);
+        spanDays = Math.max(MIN_SPAN_DAYS, Math.min(spanDays, maxSpan));
+        startDay = Math.max(last - maxSpan, Math.min(startDay, last - spanDays));
+    }
+}
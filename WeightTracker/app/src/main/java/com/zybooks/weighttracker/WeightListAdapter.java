@@ -0,0 +1,126 @@
+package com.zybooks.weighttracker;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+// Adapter for the tracker list. Only the rows on screen (plus a few spare) are ever inflated;
+// RecyclerView rebinds them as the user scrolls.
+// Rows are read straight out of the user's WeightSeries arrays (list position 0 = newest entry).
+// The series reports each add/edit/delete by index, so only the affected row is notified.
+public class WeightListAdapter extends RecyclerView.Adapter<WeightListAdapter.RowHolder>
+        implements WeightSeries.Listener {
+
+    // Row taps: tapping the row edits it, the delete button removes it
+    public interface Listener {
+        void onEdit(long id, int day, double weight);
+        void onDelete(long id);
+    }
+
+    private static final Metrics.Timer T_CREATE_ROW = Metrics.timer("ui.list.createRow");
+    private static final Metrics.Timer T_BIND_ROW = Metrics.timer("ui.list.bindRow");
+
+    private final Listener listener;
+    private WeightSeries series;
+
+    public WeightListAdapter(Listener listener) {
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    // Shows a series and starts following its edits; pass null to stop (the series outlives the screen)
+    @SuppressWarnings("NotifyDataSetChanged") // whole list swapped, nothing to diff against
+    public void setSeries(WeightSeries series) {
+        if (this.series != null) this.series.removeListener(this);
+        this.series = series;
+        if (series != null) series.addListener(this);
+        notifyDataSetChanged();
+    }
+
+    // List position of an entry, or -1
+    public int positionOf(long id) {
+        int index = series == null ? -1 : series.indexOf(id);
+        return index < 0 ? -1 : series.size() - 1 - index;
+    }
+
+    @Override
+    public int getItemCount() {
+        return series == null ? 0 : series.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return series.idAt(indexAt(position));
+    }
+
+    @NonNull
+    @Override
+    public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long start = T_CREATE_ROW.begin();
+        try {
+            View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_weight_row, parent, false);
+            return new RowHolder(v);
+        } finally {
+            T_CREATE_ROW.end(start);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RowHolder holder, int position) {
+        long start = T_BIND_ROW.begin();
+        try {
+            int i = indexAt(position);
+            holder.tvWeight.setText(String.valueOf(series.weightAt(i)));
+            holder.tvDate.setText(EpochDays.format(series.dayAt(i)));
+        } finally {
+            T_BIND_ROW.end(start);
+        }
+    }
+
+    // === WeightSeries.Listener (indexes are oldest-first; the list is newest-first) ===
+
+    @Override
+    public void onInserted(int index) {
+        notifyItemInserted(series.size() - 1 - index);
+    }
+
+    @Override
+    public void onRemoved(int index) {
+        notifyItemRemoved(series.size() - index); // size already went down by one
+    }
+
+    @Override
+    public void onChanged(int index) {
+        notifyItemChanged(series.size() - 1 - index);
+    }
+
+    private int indexAt(int position) {
+        return series.size() - 1 - position;
+    }
+
+    // Holds a row's views; its listeners look up whichever entry is bound at tap time
+    final class RowHolder extends RecyclerView.ViewHolder {
+        final TextView tvWeight;
+        final TextView tvDate;
+
+        RowHolder(View v) {
+            super(v);
+            tvWeight = v.findViewById(R.id.tvRowWeight);
+            tvDate = v.findViewById(R.id.tvRowDate);
+            v.setOnClickListener(click -> {
+                int pos = getBindingAdapterPosition();
+                if (pos == RecyclerView.NO_POSITION) return;
+                int i = indexAt(pos);
+                listener.onEdit(series.idAt(i), series.dayAt(i), series.weightAt(i));
+            });
+            v.findViewById(R.id.btnRowDelete).setOnClickListener(click -> {
+                int pos = getBindingAdapterPosition();
+                if (pos != RecyclerView.NO_POSITION) listener.onDelete(series.idAt(indexAt(pos)));
+            });
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Process-wide data access for accounts and weight entries.
+// One DatabaseHelper (in concurrent/WAL mode) lives here for the life of the process instead of
+// each screen opening and leaking its own. Lifecycle: created by WeightTrackerApp, the database is
+// opened on the first call, trimmed on memory pressure, and only closed by close() (tests).
+//
+// The data methods below block on disk, so screens never call them directly on the main thread:
+// they wrap them in submit(), which runs the work on a small background pool and hands the result
+// back on the main thread (in debug builds StrictMode crashes on any main-thread disk access).
+public class WeightRepository implements AutoCloseable {
+
+    // Two workers: with WAL a read can run while a write is in progress
+    private static final int WORKERS = 2;
+    // Bounded so a runaway caller gets an error instead of an ever-growing backlog
+    private static final int MAX_QUEUED = 64;
+    // Password hashing cost, calibrated per device on first use (see PasswordHasher)
+    private static final long HASH_TARGET_MILLIS = 100;
+    // Where goal alerts are texted (demo number)
+    static final String GOAL_ALERT_NUMBER = "5551234567";
+
+    private final DatabaseHelper db;
+    private final ThreadPoolExecutor executor;
+    private final SmsOutbox smsOutbox;
+    private final PasswordHasher passwords;
+    private final GoalEvaluator goals;
+    private GoalListener goalListener; // main thread only
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+
+    // Weight and goal writes and the series load hold this while they run and post their cache
+    // update, so updates reach the main thread (and the goal evaluator) in the order the database saw them
+    private final Object seriesLock = new Object();
+    private WeightSeries series; // logged-in user's history; main thread only
+    private UserProfile profile; // logged-in user's account details; main thread only
+
+    // Receives a task's result on the main thread
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    // Told on the main thread when a user's newest weight crosses their goal (either way)
+    public interface GoalListener {
+        void onGoalCrossed(long userId, boolean reached);
+    }
+
+    // Handle for submitted work. Cancelling drops the result (the query itself may still finish).
+    // Tasks cancel themselves when their owner (Activity or Fragment) is destroyed.
+    public static final class Task implements DefaultLifecycleObserver {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) future.cancel(false);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void onDestroy(@NonNull LifecycleOwner owner) {
+            cancel();
+        }
+    }
+
+    WeightRepository(Context context) {
+        this(new DatabaseHelper(context.getApplicationContext(), true), new SmsManagerSender(context),
+                new PasswordHasher(hashSettings(context), HASH_TARGET_MILLIS));
+    }
+
+    // Lets tests supply a helper backed by a scratch database, a fake SMS transport and a cheap hasher
+    WeightRepository(DatabaseHelper db, SmsSender smsSender, PasswordHasher passwords) {
+        this.db = db;
+        this.passwords = passwords;
+        this.smsOutbox = new SmsOutbox(db, smsSender);
+        this.goals = new GoalEvaluator(db, this::onGoalCrossed);
+        this.executor = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED), work -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    work.run();
+                }, "weight-db"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Runs work on a database thread and delivers its result to onResult on the main thread,
+    // unless owner is destroyed first. Call from the main thread. If work throws, the exception is
+    // rethrown on the main thread so failures still crash loudly, as they did when this was synchronous.
+    public <T> Task submit(LifecycleOwner owner, Callable<T> work, Callback<T> onResult) {
+        Task task = new Task();
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            task.cancel();
+            return task;
+        }
+        lifecycle.addObserver(task);
+        task.future = executor.submit(() -> {
+            if (task.cancelled) return;
+            final T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                mainThread.post(() -> {
+                    lifecycle.removeObserver(task);
+                    if (!task.cancelled) throw new RuntimeException("Database task failed", e);
+                });
+                return;
+            }
+            mainThread.post(() -> {
+                lifecycle.removeObserver(task);
+                if (!task.cancelled) onResult.onResult(result);
+            });
+        });
+        return task;
+    }
+
+    // The shared instance for any Activity, Fragment or Context in this app
+    public static WeightRepository get(Context context) {
+        return ((WeightTrackerApp) context.getApplicationContext()).getRepository();
+    }
+
+    // Calibrated iteration count, kept in its own prefs file. The file is only opened when the
+    // hasher first asks, on a database thread, since the repository itself is built on the main one.
+    private static PasswordHasher.Settings hashSettings(Context context) {
+        Context app = context.getApplicationContext();
+        return new PasswordHasher.Settings() {
+            @Override
+            public int loadIterations() {
+                return prefs().getInt("pbkdf2_iterations", 0);
+            }
+
+            @Override
+            public void saveIterations(int iterations) {
+                prefs().edit().putInt("pbkdf2_iterations", iterations).apply();
+            }
+
+            private SharedPreferences prefs() {
+                return app.getSharedPreferences("security", Context.MODE_PRIVATE);
+            }
+        };
+    }
+
+    // === Accounts ===
+    // Passwords and security answers are hashed here (slow on purpose, like every call below it
+    // runs on a database thread). Accounts from before hashing are upgraded on their next login.
+
+    public long createUser(String first, String last, String email, String username,
+                           String password, String secQuestion, String secAnswer) {
+        return db.createUserFull(first, last, email, username, passwords.hash(password), secQuestion,
+                passwords.hash(PasswordHasher.normalizeAnswer(secAnswer)));
+    }
+
+    public boolean usernameExists(String username) { return db.usernameExists(username); }
+
+    public boolean emailExists(String email) { return db.emailExists(email); }
+
+    public boolean userIdExists(long userId) { return db.userIdExists(userId); }
+
+    // Returns the user's id, or -1 if the username/password don't match. A match against plain text
+    // or a cheaper hash is rehashed with the current settings before returning.
+    public long authenticate(String username, String password) {
+        String stored = db.getPasswordHash(username);
+        if (stored == null) {
+            passwords.hash(nullToEmpty(password)); // same cost as a real check, so timing doesn't reveal usernames
+            return -1;
+        }
+        if (!passwords.verify(password, stored)) return -1;
+        if (passwords.needsRehash(stored)) db.updatePassword(username, passwords.hash(password));
+        String answer = db.getSecurityAnswer(username);
+        if (answer != null && !PasswordHasher.isHash(answer)) {
+            db.setSecurityAnswerHash(username, passwords.hash(PasswordHasher.normalizeAnswer(answer)));
+        }
+        return db.getUserId(username);
+    }
+
+    public String getUsernameByEmail(String email) { return db.getUsernameByEmail(email); }
+
+    public String getSecurityQuestion(String username) { return db.getSecurityQuestion(username); }
+
+    // True if answer matches the user's security answer (case and surrounding spaces ignored)
+    public boolean checkSecurityAnswer(String username, String answer) {
+        String stored = db.getSecurityAnswer(username);
+        if (stored != null && !PasswordHasher.isHash(stored)) stored = PasswordHasher.normalizeAnswer(stored);
+        return passwords.verify(PasswordHasher.normalizeAnswer(answer), stored);
+    }
+
+    public boolean updatePassword(String username, String newPassword) {
+        return db.updatePassword(username, passwords.hash(newPassword));
+    }
+
+    // Also updates the cached profile (if loaded), before the write's own submit() result is delivered
+    public void setGoalWeight(long userId, double goal) {
+        synchronized (seriesLock) {
+            db.setGoalWeight(userId, goal);
+            mainThread.post(() -> {
+                if (profile != null && profile.userId == userId) profile = profile.withGoal(goal);
+            });
+            goals.onGoalChanged(userId, goal);
+        }
+    }
+
+    // === Weights ===
+    // Each write also updates the cached WeightSeries (if loaded) on the main thread, before the
+    // write's own submit() result is delivered, and re-checks the goal against the newest weight.
+
+    public long addWeight(long userId, int epochDay, double weight) {
+        synchronized (seriesLock) {
+            long id = db.addWeight(userId, epochDay, weight);
+            if (id > 0) {
+                mainThread.post(() -> {
+                    if (series != null && series.getUserId() == userId) series.add(id, epochDay, weight);
+                });
+                goals.onLatestChanged(userId, db.getLatestWeight(userId));
+            }
+            return id;
+        }
+    }
+
+    public int updateWeight(long userId, long id, int epochDay, double weight) {
+        synchronized (seriesLock) {
+            int rows = db.updateWeight(id, epochDay, weight);
+            if (rows > 0) {
+                mainThread.post(() -> {
+                    if (series != null) series.update(id, epochDay, weight);
+                });
+                goals.onLatestChanged(userId, db.getLatestWeight(userId));
+            }
+            return rows;
+        }
+    }
+
+    public int deleteWeight(long userId, long id) {
+        synchronized (seriesLock) {
+            int rows = db.deleteWeight(id);
+            if (rows > 0) {
+                mainThread.post(() -> {
+                    if (series != null) series.remove(id);
+                });
+                goals.onLatestChanged(userId, db.getLatestWeight(userId));
+            }
+            return rows;
+        }
+    }
+
+    // Main thread: the user's cached history, loading it first if needed. onLoaded gets the same
+    // instance every time until clearUserCaches() (or another user's series is loaded).
+    public void loadSeries(LifecycleOwner owner, long userId, Callback<WeightSeries> onLoaded) {
+        if (series != null && series.getUserId() == userId) {
+            onLoaded.onResult(series);
+            return;
+        }
+        submit(owner, () -> {
+            synchronized (seriesLock) {
+                WeightSeries loaded = db.loadSeries(userId);
+                mainThread.post(() -> series = loaded);
+                return loaded;
+            }
+        }, loaded -> onLoaded.onResult(series != null && series.getUserId() == userId ? series : loaded));
+    }
+
+    // Main thread: the user's cached profile, checking the user still exists and loading it first if
+    // needed. onLoaded gets null if there's no such user.
+    public void loadProfile(LifecycleOwner owner, long userId, Callback<UserProfile> onLoaded) {
+        if (profile != null && profile.userId == userId) {
+            onLoaded.onResult(profile);
+            return;
+        }
+        submit(owner, () -> {
+            synchronized (seriesLock) {
+                UserProfile loaded = db.userIdExists(userId) ? db.getProfile(userId) : null;
+                if (loaded != null) mainThread.post(() -> profile = loaded);
+                return loaded;
+            }
+        }, loaded -> onLoaded.onResult(profile != null && profile.userId == userId ? profile : loaded));
+    }
+
+    // Main thread: forgets the cached history and profile (on login and logout)
+    public void clearUserCaches() {
+        series = null;
+        profile = null;
+    }
+
+    // === Goal alerts ===
+
+    // Main thread: one listener at a time (the tracker screen); pass null to stop listening
+    public void setGoalListener(GoalListener listener) {
+        goalListener = listener;
+    }
+
+    // Database thread, after the write that caused it commits (still under seriesLock), so the
+    // weight and the queued text are not one transaction. Reaching the goal queues one text per
+    // crossing (the crossing number makes the dedupe key); either way the screen hears about it.
+    private void onGoalCrossed(long userId, int from, int to, int crossing, double latest, double goal) {
+        boolean reached = to == GoalEvaluator.STATE_REACHED;
+        if (reached) {
+            String msg = String.format(Locale.getDefault(),
+                    "Goal reached! Current: %.1f lb (goal %.1f lb).", latest, goal);
+            smsOutbox.enqueue(userId, "goal-reached:" + userId + ":" + crossing, GOAL_ALERT_NUMBER, msg);
+        }
+        mainThread.post(() -> {
+            if (goalListener != null) goalListener.onGoalCrossed(userId, reached);
+        });
+    }
+
+    // === Alerts ===
+
+    SmsOutbox getSmsOutbox() {
+        return smsOutbox;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    // === Lifecycle ===
+
+    // Frees cache memory the database isn't using; the connection stays open
+    void releaseMemory() {
+        SQLiteDatabase.releaseMemory();
+    }
+
+    @Override
+    public void close() {
+        smsOutbox.shutdown();
+        executor.shutdown();
+        db.close();
+    }
+}
@@ -0,0 +1,172 @@
+package com.zybooks.weighttracker;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import static com.zybooks.weighttracker.DatabaseHelper.COL_DAY;
+import static com.zybooks.weighttracker.DatabaseHelper.COL_USER_FK;
+import static com.zybooks.weighttracker.DatabaseHelper.COL_WEIGHT;
+import static com.zybooks.weighttracker.DatabaseHelper.COL_WEIGHT_ID;
+import static com.zybooks.weighttracker.DatabaseHelper.TABLE_WEIGHTS;
+
+// Schema for the per-user day/week/month summary table that SQLite triggers keep in sync with
+// the weights table. Trend views read a few dozen bucket rows instead of rescanning raw entries.
+//
+// Inserts update their buckets in place (count, sum, min, max, last value). Updates and deletes
+// can't undo a min/max, so they rebuild just the affected buckets from the weights index,
+// which is at most a month of one user's entries.
+final class WeightRollups {
+
+    // Bucket sizes (stored in the period column); weeks start on Monday
+    static final String PERIOD_DAY   = "day";
+    static final String PERIOD_WEEK  = "week";
+    static final String PERIOD_MONTH = "month";
+    private static final String[] PERIODS = {PERIOD_DAY, PERIOD_WEEK, PERIOD_MONTH};
+
+    static final String TABLE_ROLLUPS  = "weight_rollups";
+    static final String COL_USER       = "user_id";
+    static final String COL_PERIOD     = "period";
+    static final String COL_START      = "bucket_start"; // first epoch day in the bucket
+    static final String COL_END        = "bucket_end";   // last epoch day in the bucket
+    static final String COL_COUNT      = "entry_count";
+    static final String COL_SUM        = "weight_sum";
+    static final String COL_MIN        = "weight_min";
+    static final String COL_MAX        = "weight_max";
+    static final String COL_LAST_DAY   = "last_day";     // newest entry in the bucket (day, id, weight)
+    static final String COL_LAST_ID    = "last_id";
+    static final String COL_LAST       = "last_weight";
+
+    // Julian day number of 1970-01-01, for SQLite's date functions
+    private static final String UNIX_EPOCH_JD = "2440587.5";
+
+    // Buckets of one size for a user whose first day falls in a range (oldest first)
+    static final String SQL_ROLLUPS = "SELECT " + COL_START + ", " + COL_END + ", " + COL_COUNT + ", " +
+            COL_SUM + ", " + COL_MIN + ", " + COL_MAX + ", " + COL_LAST + ", " +
+            COL_SUM + " / " + COL_COUNT + " AS weight_avg" +
+            " FROM " + TABLE_ROLLUPS +
+            " WHERE " + COL_USER + "=? AND " + COL_PERIOD + "=? AND " + COL_START + " BETWEEN ? AND ?" +
+            " ORDER BY " + COL_START;
+
+    private WeightRollups() { }
+
+    // Creates the table and its triggers, then fills it from whatever is already in weights
+    static void create(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ROLLUPS + " (" +
+                COL_USER     + " INTEGER NOT NULL, " +
+                COL_PERIOD   + " TEXT NOT NULL, " +
+                COL_START    + " INTEGER NOT NULL, " +
+                COL_END      + " INTEGER NOT NULL, " +
+                COL_COUNT    + " INTEGER NOT NULL, " +
+                COL_SUM      + " REAL NOT NULL, " +
+                COL_MIN      + " REAL, " +
+                COL_MAX      + " REAL, " +
+                COL_LAST_DAY + " INTEGER, " +
+                COL_LAST_ID  + " INTEGER, " +
+                COL_LAST     + " REAL, " +
+                "PRIMARY KEY(" + COL_USER + ", " + COL_PERIOD + ", " + COL_START + ")" +
+                ") WITHOUT ROWID");
+
+        createTriggers(db);
+
+        for (String period : PERIODS) backfill(db, period);
+    }
+
+    private static void createTriggers(SQLiteDatabase db) {
+        StringBuilder insert = new StringBuilder();
+        StringBuilder delete = new StringBuilder();
+        StringBuilder update = new StringBuilder();
+        for (String period : PERIODS) {
+            insert.append(addToBucket(period));
+            delete.append(rebuildBucket(period, "OLD"));
+            update.append(rebuildBucket(period, "OLD")).append(rebuildBucket(period, "NEW"));
+        }
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_weights_rollup_insert AFTER INSERT ON " + TABLE_WEIGHTS +
+                " BEGIN " + insert + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_weights_rollup_delete AFTER DELETE ON " + TABLE_WEIGHTS +
+                " BEGIN " + delete + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_weights_rollup_update AFTER UPDATE ON " + TABLE_WEIGHTS +
+                " BEGIN " + update + "END");
+    }
+
+    // Trigger body (inserts): make sure NEW's bucket exists, then fold NEW into it
+    private static String addToBucket(String period) {
+        String start = bucketStart(period, "NEW." + COL_DAY);
+        String newer = "(NEW." + COL_DAY + " > " + COL_LAST_DAY + " OR (NEW." + COL_DAY + " = " + COL_LAST_DAY +
+                " AND NEW." + COL_WEIGHT_ID + " > " + COL_LAST_ID + "))";
+        return "INSERT OR IGNORE INTO " + TABLE_ROLLUPS + " VALUES (NEW." + COL_USER_FK + ", '" + period + "', " +
+                start + ", " + bucketEnd(period, "NEW." + COL_DAY) + ", 0, 0, NEW." + COL_WEIGHT + ", NEW." +
+                COL_WEIGHT + ", NEW." + COL_DAY + ", NEW." + COL_WEIGHT_ID + ", NEW." + COL_WEIGHT + "); " +
+                // every SET expression sees the row as it was before this UPDATE
+                "UPDATE " + TABLE_ROLLUPS + " SET " +
+                COL_COUNT + " = " + COL_COUNT + " + 1, " +
+                COL_SUM + " = " + COL_SUM + " + NEW." + COL_WEIGHT + ", " +
+                COL_MIN + " = MIN(" + COL_MIN + ", NEW." + COL_WEIGHT + "), " +
+                COL_MAX + " = MAX(" + COL_MAX + ", NEW." + COL_WEIGHT + "), " +
+                COL_LAST + " = CASE WHEN " + newer + " THEN NEW." + COL_WEIGHT + " ELSE " + COL_LAST + " END, " +
+                COL_LAST_ID + " = CASE WHEN " + newer + " THEN NEW." + COL_WEIGHT_ID + " ELSE " + COL_LAST_ID + " END, " +
+                COL_LAST_DAY + " = CASE WHEN " + newer + " THEN NEW." + COL_DAY + " ELSE " + COL_LAST_DAY + " END" +
+                " WHERE " + COL_USER + " = NEW." + COL_USER_FK + " AND " + COL_PERIOD + " = '" + period + "'" +
+                " AND " + COL_START + " = " + start + "; ";
+    }
+
+    // Trigger body (updates/deletes): recompute the bucket that row (OLD or NEW) falls in.
+    // Nothing is written back if the bucket is now empty.
+    private static String rebuildBucket(String period, String row) {
+        String user = row + "." + COL_USER_FK;
+        String start = bucketStart(period, row + "." + COL_DAY);
+        String end = bucketEnd(period, row + "." + COL_DAY);
+        String inBucket = " WHERE " + COL_USER_FK + " = " + user +
+                " AND " + COL_DAY + " BETWEEN " + start + " AND " + end;
+        return "DELETE FROM " + TABLE_ROLLUPS + " WHERE " + COL_USER + " = " + user +
+                " AND " + COL_PERIOD + " = '" + period + "' AND " + COL_START + " = " + start + "; " +
+                "INSERT INTO " + TABLE_ROLLUPS +
+                " SELECT " + user + ", '" + period + "', " + start + ", " + end + ", agg.n, agg.total, agg.lo, agg.hi, " +
+                "l." + COL_DAY + ", l." + COL_WEIGHT_ID + ", l." + COL_WEIGHT +
+                " FROM (SELECT COUNT(*) AS n, SUM(" + COL_WEIGHT + ") AS total, MIN(" + COL_WEIGHT + ") AS lo, MAX(" +
+                COL_WEIGHT + ") AS hi FROM " + TABLE_WEIGHTS + inBucket + ") agg" +
+                " JOIN " + TABLE_WEIGHTS + " l ON l." + COL_WEIGHT_ID + " = (SELECT " + COL_WEIGHT_ID +
+                " FROM " + TABLE_WEIGHTS + inBucket +
+                " ORDER BY " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC LIMIT 1); ";
+    }
+
+    // One-time fill of a bucket size from the existing weights rows
+    private static void backfill(SQLiteDatabase db, String period) {
+        db.execSQL("INSERT INTO " + TABLE_ROLLUPS +
+                " SELECT g.u, '" + period + "', g.s, g.e, g.n, g.total, g.lo, g.hi, " +
+                "l." + COL_DAY + ", l." + COL_WEIGHT_ID + ", l." + COL_WEIGHT +
+                " FROM (SELECT " + COL_USER_FK + " AS u, " + bucketStart(period, COL_DAY) + " AS s, " +
+                bucketEnd(period, COL_DAY) + " AS e, COUNT(*) AS n, SUM(" + COL_WEIGHT + ") AS total, MIN(" +
+                COL_WEIGHT + ") AS lo, MAX(" + COL_WEIGHT + ") AS hi FROM " + TABLE_WEIGHTS +
+                " GROUP BY u, s) g" +
+                " JOIN " + TABLE_WEIGHTS + " l ON l." + COL_WEIGHT_ID + " = (SELECT " + COL_WEIGHT_ID +
+                " FROM " + TABLE_WEIGHTS + " WHERE " + COL_USER_FK + " = g.u AND " + COL_DAY +
+                " BETWEEN g.s AND g.e ORDER BY " + COL_DAY + " DESC, " + COL_WEIGHT_ID + " DESC LIMIT 1)");
+    }
+
+    // SQL for the first epoch day of the bucket that day falls in
+    static String bucketStart(String period, String day) {
+        switch (period) {
+            case PERIOD_WEEK:
+                // 1970-01-01 was a Thursday, three days after a Monday
+                return "(" + day + " - (((" + day + " + 3) % 7) + 7) % 7)";
+            case PERIOD_MONTH:
+                return "CAST(julianday(" + UNIX_EPOCH_JD + " + " + day + ", 'start of month') - " +
+                        UNIX_EPOCH_JD + " AS INTEGER)";
+            default:
+                return "(" + day + ")";
+        }
+    }
+
+    // SQL for the last epoch day of the bucket that day falls in
+    static String bucketEnd(String period, String day) {
+        switch (period) {
+            case PERIOD_WEEK:
+                return "(" + bucketStart(period, day) + " + 6)";
+            case PERIOD_MONTH:
+                return "(CAST(julianday(" + UNIX_EPOCH_JD + " + " + day + ", 'start of month', '+1 month') - " +
+                        UNIX_EPOCH_JD + " AS INTEGER) - 1)";
+            default:
+                return "(" + day + ")";
+        }
+    }
+}
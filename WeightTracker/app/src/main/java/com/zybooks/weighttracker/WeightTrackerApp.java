@@ -0,0 +1,64 @@
+package com.zybooks.weighttracker;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+// Application class: owns the single WeightRepository and Session that every screen and dialog shares.
+// Nothing database-related happens here: the repository (thread pool, hasher, helper) is built on
+// first use, and TrackerActivity starts the SMS outbox once its first data is on screen.
+public class WeightTrackerApp extends Application {
+
+    private WeightRepository repository; // null until the first getRepository() (guarded by this)
+    private Session session;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) enableStrictMode();
+        // only reads its prefs; the repository is looked up when it first needs the database
+        session = new Session(this);
+    }
+
+    public synchronized WeightRepository getRepository() {
+        if (repository == null) repository = new WeightRepository(this);
+        return repository;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    // Debug builds only: disk access on the main thread crashes the app (database work belongs in
+    // WeightRepository.submit), so a regression fails tests instead of hiding in logcat. The few
+    // reads that have to happen there are allowed where they're made (see Session). Cursors and
+    // databases that are never closed are logged.
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .penaltyDeath()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+
+    // Gives back SQLite page cache memory when the app goes to the background or memory is tight
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            WeightRepository repo;
+            synchronized (this) {
+                repo = repository;
+            }
+            if (repo != null) repo.releaseMemory(); // nothing to give back if it was never opened
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.zybooks.weighttracker;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local JVM benchmarks for {@link DatabaseHelper} against a real SQLite build (Robolectric's
+ * native mode), at 1k, 100k and (with {@code -Pbenchmarks=large}) 1M rows of {@link SyntheticData}
+ * spread over 1 and 500 users. Skipped unless {@code -Pbenchmarks} is given; results are written as JSON to
+ * build/benchmark-results/DatabaseHelperJvmBenchmark.json so runs can be diffed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DatabaseHelperJvmBenchmark {
+
+    private static final String BENCH_DB = "weighttracker_jvm_benchmark.db";
+    private static final File RESULTS = new File("build/benchmark-results/DatabaseHelperJvmBenchmark.json");
+
+    private static final int[] USER_COUNTS = {1, 500};
+    private static final long SEED = 42; // same SyntheticData fixtures every run
+    private static final int POINT_OPS = 5_000; // lookups and single-row writes per scenario
+    private static final int WARM_UP_DIVISOR = 10; // an extra tenth of each run, not recorded
+
+    // One line of the results file
+    private static final class Result {
+        final int rows;
+        final int users;
+        final String op;
+        final int ops;
+        final double opsPerSec;
+        final double p50Micros;
+        final double p99Micros;
+        final double maxMicros;
+
+        Result(int rows, int users, String op, long[] nanos, long totalNanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            this.rows = rows;
+            this.users = users;
+            this.op = op;
+            this.ops = sorted.length;
+            this.opsPerSec = sorted.length / (totalNanos / 1e9);
+            this.p50Micros = percentile(sorted, 0.50) / 1e3;
+            this.p99Micros = percentile(sorted, 0.99) / 1e3;
+            this.maxMicros = sorted[sorted.length - 1] / 1e3;
+        }
+    }
+
+    // A timed operation; i is 0..ops-1 for measured calls and ops and up for warm-up calls
+    private interface Op {
+        void run(int i);
+    }
+
+    private Context context;
+    private DatabaseHelper db;
+    private final List<Result> results = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        assumeTrue("run with -Pbenchmarks=true (or large)", !mode().isEmpty());
+        context = RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null) db.close();
+        if (context != null) context.deleteDatabase(BENCH_DB);
+    }
+
+    @Test
+    public void databaseOps_atRealisticSizes() throws IOException {
+        List<Integer> sizes = new ArrayList<>(Arrays.asList(1_000, 100_000));
+        if (mode().equals("large")) sizes.add(1_000_000);
+
+        String sqliteVersion = null;
+        int schemaVersion = 0;
+        for (int rows : sizes) {
+            for (int users : USER_COUNTS) {
+                openFresh();
+                if (sqliteVersion == null) {
+                    sqliteVersion = sqliteVersion();
+                    schemaVersion = db.getReadableDatabase().getVersion();
+                }
+                runScenario(rows, users);
+                db.close();
+                db = null;
+            }
+        }
+        writeResults(sqliteVersion, schemaVersion);
+        assertFalse(results.isEmpty());
+    }
+
+    private void openFresh() {
+        context.deleteDatabase(BENCH_DB);
+        // a real file in WAL mode, the way WeightRepository opens it
+        db = new DatabaseHelper(context, BENCH_DB, true);
+    }
+
+    private void runScenario(int rows, int users) {
+        Random rnd = new Random(rows * 31L + users);
+        int rowsPerUser = rows / users;
+
+        long[] userIds = SyntheticData.generate(db, SEED, users, rowsPerUser);
+        String[] usernames = new String[users];
+        for (int u = 0; u < users; u++) usernames[u] = SyntheticData.username(u);
+
+        // new entries go after each user's history; the delete pass removes them again
+        long[] added = new long[POINT_OPS + POINT_OPS / WARM_UP_DIVISOR];
+        int[] nextDay = new int[users];
+        Arrays.fill(nextDay, SyntheticData.START_DAY + 4 * rowsPerUser + 1_000); // past any generated day
+        measure(rows, users, "addWeight", POINT_OPS, i -> {
+            int u = rnd.nextInt(users);
+            added[i] = db.addWeight(userIds[u], nextDay[u]++, 150 + rnd.nextInt(400) * 0.1);
+        });
+        measure(rows, users, "deleteWeight", POINT_OPS, i -> assertEquals(1, db.deleteWeight(added[i])));
+
+        // the DB side of logging in (PBKDF2 is benchmarked on its own in PasswordHasherBenchmark)
+        measure(rows, users, "authenticate", POINT_OPS, i -> {
+            String name = usernames[rnd.nextInt(users)];
+            assertNotNull(db.getPasswordHash(name));
+            assertTrue(db.getUserId(name) > 0);
+        });
+        measure(rows, users, "getGoalWeight", POINT_OPS,
+                i -> assertTrue(db.getGoalWeight(userIds[rnd.nextInt(users)]) >= 0));
+
+        // full history reads: fewer of them as each user's history gets longer
+        int scans = Math.max(10, Math.min(1_000, 200_000 / Math.max(1, rowsPerUser)));
+        measure(rows, users, "getAllWeights", scans, i -> {
+            int count = 0;
+            try (Cursor c = db.getAllWeights(userIds[rnd.nextInt(users)])) {
+                while (c.moveToNext()) {
+                    c.getLong(0);
+                    c.getDouble(2);
+                    count++;
+                }
+            }
+            assertEquals(rowsPerUser, count);
+        });
+    }
+
+    private void measure(int rows, int users, String name, int ops, Op op) {
+        int warmUp = ops / WARM_UP_DIVISOR;
+        for (int i = 0; i < warmUp; i++) op.run(ops + i);
+        long[] nanos = new long[ops];
+        long total = 0;
+        for (int i = 0; i < ops; i++) {
+            long start = System.nanoTime();
+            op.run(i);
+            nanos[i] = System.nanoTime() - start;
+            total += nanos[i];
+        }
+        Result r = new Result(rows, users, name, nanos, total);
+        results.add(r);
+        System.out.printf(Locale.US, "%s rows=%d users=%d x%d: %.0f ops/s, p50 %.1f us, p99 %.1f us%n",
+                name, rows, users, ops, r.opsPerSec, r.p50Micros, r.p99Micros);
+    }
+
+    private String sqliteVersion() {
+        try (Cursor c = db.getReadableDatabase().rawQuery("SELECT sqlite_version()", null)) {
+            return c.moveToFirst() ? c.getString(0) : "unknown";
+        }
+    }
+
+    // Hand-written so the file has a stable layout: one result per line
+    private void writeResults(String sqliteVersion, int schemaVersion) throws IOException {
+        File dir = RESULTS.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("can't create " + dir);
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(RESULTS), StandardCharsets.UTF_8)) {
+            out.write("{\n");
+            out.write(String.format(Locale.US, "  \"benchmark\": \"%s\",\n", getClass().getSimpleName()));
+            out.write(String.format(Locale.US, "  \"timestamp\": %d,\n", System.currentTimeMillis()));
+            out.write(String.format(Locale.US, "  \"sqlite\": \"%s\",\n", sqliteVersion));
+            out.write(String.format(Locale.US, "  \"dbVersion\": %d,\n", schemaVersion));
+            out.write("  \"results\": [\n");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                out.write(String.format(Locale.US,
+                        "    {\"op\": \"%s\", \"rows\": %d, \"users\": %d, \"ops\": %d, \"opsPerSec\": %.1f, " +
+                                "\"p50Micros\": %.2f, \"p99Micros\": %.2f, \"maxMicros\": %.2f}%s\n",
+                        r.op, r.rows, r.users, r.ops, r.opsPerSec, r.p50Micros, r.p99Micros, r.maxMicros,
+                        i < results.size() - 1 ? "," : ""));
+            }
+            out.write("  ]\n}\n");
+        }
+        System.out.println("results written to " + RESULTS.getAbsolutePath());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    private static String mode() {
+        return System.getProperty("benchmarks", "").trim().toLowerCase(Locale.ROOT);
+    }
+}
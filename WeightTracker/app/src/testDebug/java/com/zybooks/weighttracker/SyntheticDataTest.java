@@ -0,0 +1,121 @@
+package com.zybooks.weighttracker;
+
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local tests for {@link SyntheticData}: the same seed gives the same rows, histories have the
+ * gaps and same-day entries they're meant to, and generated accounts can log in.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class SyntheticDataTest {
+
+    private DatabaseHelper first;
+    private DatabaseHelper second;
+
+    @Before
+    public void setUp() {
+        first = new DatabaseHelper(RuntimeEnvironment.getApplication(), null); // in-memory
+        second = new DatabaseHelper(RuntimeEnvironment.getApplication(), null);
+    }
+
+    @After
+    public void tearDown() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void sameSeed_givesSameRows() {
+        SyntheticData.generate(first, 7, 20, 300);
+        SyntheticData.generate(second, 7, 20, 300);
+
+        assertEquals(dump(first), dump(second));
+    }
+
+    @Test
+    public void differentSeed_givesDifferentRows() {
+        SyntheticData.generate(first, 7, 5, 100);
+        SyntheticData.generate(second, 8, 5, 100);
+
+        assertFalse(dump(first).equals(dump(second)));
+    }
+
+    @Test
+    public void everyUser_getsExactlyTheRequestedEntries() {
+        long[] ids = SyntheticData.generate(first, 3, 12, 250);
+
+        assertEquals(12, ids.length);
+        for (long id : ids) {
+            assertEquals(250, first.getStats(id).getCount());
+            try (Cursor c = first.getAllWeights(id)) {
+                assertEquals(250, c.getCount());
+            }
+        }
+    }
+
+    @Test
+    public void history_hasGapsAndSameDayEntries() {
+        List<DatabaseHelper.Entry> h = SyntheticData.history(new Random(1), 200, 5_000);
+
+        int gaps = 0;
+        int sameDay = 0;
+        for (int i = 1; i < h.size(); i++) {
+            int step = h.get(i).epochDay - h.get(i - 1).epochDay;
+            assertTrue("days go backwards at " + i, step >= 0);
+            if (step == 0) sameDay++;
+            if (step > 1) gaps++;
+            assertTrue(h.get(i).weight > 100 && h.get(i).weight < 300);
+        }
+        assertEquals(SyntheticData.START_DAY, h.get(0).epochDay);
+        assertTrue(gaps > 100);
+        assertTrue(sameDay > 50);
+    }
+
+    @Test
+    public void generatedAccounts_canLogIn() {
+        SyntheticData.generate(first, 5, 3, 10);
+        PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_ITERATIONS);
+
+        String name = SyntheticData.username(2);
+        assertTrue(hasher.verify(SyntheticData.PASSWORD, first.getPasswordHash(name)));
+        assertTrue(hasher.verify(PasswordHasher.normalizeAnswer(SyntheticData.SECURITY_ANSWER),
+                first.getSecurityAnswer(name)));
+        assertTrue(first.getUserId(name) > 0);
+    }
+
+    // Every user and weight row, minus the salted hashes and creation times
+    private static String dump(DatabaseHelper db) {
+        StringBuilder sb = new StringBuilder();
+        try (Cursor c = db.getReadableDatabase().rawQuery(
+                "SELECT _id, username, email, goal_weight FROM users ORDER BY _id", null)) {
+            while (c.moveToNext()) {
+                sb.append(c.getLong(0)).append(' ').append(c.getString(1)).append(' ')
+                        .append(c.getString(2)).append(' ').append(c.getDouble(3)).append('\n');
+            }
+        }
+        try (Cursor c = db.getReadableDatabase().rawQuery(
+                "SELECT _id, user_id, entry_day, weight_lbs FROM weights ORDER BY _id", null)) {
+            while (c.moveToNext()) {
+                sb.append(c.getLong(0)).append(' ').append(c.getLong(1)).append(' ')
+                        .append(c.getInt(2)).append(' ').append(c.getDouble(3)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
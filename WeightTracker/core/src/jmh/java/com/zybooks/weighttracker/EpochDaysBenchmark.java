@@ -0,0 +1,67 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EpochDays} parsing and formatting, which run for every row bound in the history list
+ * and every date typed into the add/edit dialogs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EpochDaysBenchmark {
+
+    private static final int SIZE = 1024; // power of two so the index can wrap with a mask
+
+    private final String[] isoDates = new String[SIZE];
+    private final String[] usDates = new String[SIZE];
+    private final int[] days = new int[SIZE];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < SIZE; i++) {
+            days[i] = EpochDays.of(2000 + rnd.nextInt(30), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28));
+            isoDates[i] = EpochDays.format(days[i]);
+            String[] p = isoDates[i].split("-");
+            usDates[i] = p[1] + "/" + p[2] + "/" + p[0];
+        }
+    }
+
+    @Benchmark
+    public int parseIso() {
+        return EpochDays.parse(isoDates[next++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int parseMonthFirst() {
+        return EpochDays.parse(usDates[next++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public int parseInvalid() {
+        return EpochDays.parse("2024-02-30");
+    }
+
+    @Benchmark
+    public String format() {
+        return EpochDays.format(days[next++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public void roundTrip(Blackhole bh) {
+        int day = days[next++ & (SIZE - 1)];
+        bh.consume(EpochDays.parse(EpochDays.format(day)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GoalEvaluator} checks with a store that does nothing, so what's left is the per-user
+ * lookup and the comparison that runs after every weight or goal change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GoalEvaluatorBenchmark {
+
+    private static final double GOAL = 150;
+
+    @Param({"1", "500"})
+    public int users;
+
+    private GoalEvaluator goals;
+    private Random rnd;
+    private int crossings;
+
+    @Setup
+    public void setUp() {
+        rnd = new Random(13);
+        GoalEvaluator.Store store = new GoalEvaluator.Store() {
+            @Override
+            public GoalEvaluator.Snapshot load(long userId) {
+                return new GoalEvaluator.Snapshot(GOAL, 160, GoalEvaluator.STATE_ABOVE, 0);
+            }
+
+            @Override
+            public void save(long userId, int state, int crossings) { }
+        };
+        goals = new GoalEvaluator(store, (userId, from, to, crossing, latest, goal) -> crossings++);
+        for (long u = 1; u <= users; u++) goals.stateOf(u); // load everyone up front
+    }
+
+    // New weight that stays on the same side of the goal (no report)
+    @Benchmark
+    public int sameSide() {
+        long user = 1 + rnd.nextInt(users);
+        goals.onLatestChanged(user, GOAL + 1 + rnd.nextInt(20));
+        return crossings;
+    }
+
+    // New weight that flips the side every call (a report each time)
+    @Benchmark
+    public int crossing() {
+        long user = 1 + rnd.nextInt(users);
+        double latest = goals.stateOf(user) == GoalEvaluator.STATE_REACHED ? GOAL + 5 : GOAL - 5;
+        goals.onLatestChanged(user, latest);
+        return crossings;
+    }
+
+    @Benchmark
+    public int goalChanged() {
+        long user = 1 + rnd.nextInt(users);
+        goals.onGoalChanged(user, 140 + rnd.nextInt(30));
+        return crossings;
+    }
+}
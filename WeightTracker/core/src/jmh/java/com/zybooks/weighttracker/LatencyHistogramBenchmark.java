@@ -0,0 +1,46 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link LatencyHistogram#record} (paid on every timed call, so it has to stay in the
+ * nanoseconds), alone and with four threads recording into the same histogram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyHistogramBenchmark {
+
+    private LatencyHistogram histogram;
+
+    @Setup
+    public void setUp() {
+        histogram = new LatencyHistogram();
+        for (int i = 0; i < 100_000; i++) histogram.record(10_000 + i * 37L);
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+
+    @Benchmark
+    public long p99() {
+        return histogram.percentile(0.99);
+    }
+}
@@ -0,0 +1,90 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Lttb} downsampling for the trend chart: a cold full-range pass, redrawing from the cache,
+ * panning a fixed-width window, and the cost of an edit near the newest entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LttbBenchmark {
+
+    // Roughly the chart's width in points on a phone
+    private static final int MAX_POINTS = 500;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private WeightSeries series;
+    private Lttb lttb;
+    private int[] out;
+    private int level;
+    private int window;
+    private int pan;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(9);
+        long[] ids = new long[size];
+        int[] days = new int[size];
+        double[] weights = new double[size];
+        double w = 200;
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+            days[i] = i;
+            w += rnd.nextGaussian() * 0.5 - 0.02;
+            weights[i] = w;
+        }
+        series = new WeightSeries(1, ids, days, weights, size);
+        out = new int[MAX_POINTS * 2 + 2];
+        window = Math.max(2, size / 10);
+    }
+
+    // Each iteration starts with nothing cached, like the first draw after loading
+    @Setup(Level.Iteration)
+    public void reset() {
+        lttb = new Lttb(series);
+        level = lttb.levelFor(size, MAX_POINTS);
+        pan = 0;
+    }
+
+    @Benchmark
+    public int fullRangeCold() {
+        lttb.invalidateFrom(0);
+        return lttb.picks(level, 0, size, out);
+    }
+
+    @Benchmark
+    public int fullRangeCached() {
+        return lttb.picks(level, 0, size, out);
+    }
+
+    // A tenth of the history on screen, sliding right a little each frame
+    @Benchmark
+    public int panWindow() {
+        int zoomed = lttb.levelFor(window, MAX_POINTS);
+        int from = pan;
+        pan = (pan + Math.max(1, window / 50)) % (size - window);
+        return lttb.picks(zoomed, from, from + window, out);
+    }
+
+    // The newest entry was edited: only the last few buckets are redone
+    @Benchmark
+    public int editNewest() {
+        lttb.invalidateFrom(size - 1);
+        return lttb.picks(level, 0, size, out);
+    }
+}
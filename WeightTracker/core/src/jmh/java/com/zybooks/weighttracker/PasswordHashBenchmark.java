@@ -0,0 +1,51 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PasswordHasher} at fixed iteration counts. On a desktop JVM this only shows how the cost
+ * scales with iterations; the numbers that matter for calibration come from PasswordHasherBenchmark
+ * on a device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHashBenchmark {
+
+    @Param({"10000", "100000"})
+    public int iterations;
+
+    private PasswordHasher hasher;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        hasher = new PasswordHasher(iterations);
+        stored = hasher.hash("secret1");
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash("secret1");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify("secret1", stored);
+    }
+
+    // Legacy plain-text rows are compared as is; this should be next to free
+    @Benchmark
+    public boolean verifyPlainText() {
+        return hasher.verify("secret1", "secret1");
+    }
+}
@@ -0,0 +1,91 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edits to an in-memory {@link WeightSeries} (which keep its {@link WeightStats} up to date) and
+ * the date lookups the list and chart make against it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WeightSeriesBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private WeightSeries series;
+    private Random rnd;
+    private long nextId;
+    private int lastDay;
+
+    // A fresh series per iteration so appends don't keep growing it across the whole run
+    @Setup(Level.Iteration)
+    public void setUp() {
+        rnd = new Random(3);
+        long[] ids = new long[size];
+        int[] days = new int[size];
+        double[] weights = new double[size];
+        double w = 200;
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+            days[i] = 10_000 + i;
+            w += rnd.nextGaussian() * 0.5 - 0.02;
+            weights[i] = w;
+        }
+        series = new WeightSeries(1, ids, days, weights, size);
+        nextId = size + 1;
+        lastDay = 10_000 + size;
+    }
+
+    // New entry for today: the common case, lands at the end
+    @Benchmark
+    public int appendNewest() {
+        return series.add(nextId++, lastDay++, 150 + rnd.nextDouble() * 10);
+    }
+
+    // Backdated entry: has to shift the tail and rebuild what depends on order
+    @Benchmark
+    public int insertBackdated() {
+        return series.add(nextId++, 10_000 + rnd.nextInt(size), 150 + rnd.nextDouble() * 10);
+    }
+
+    // Same day, new weight (no move)
+    @Benchmark
+    public boolean updateWeight() {
+        int i = rnd.nextInt(series.size());
+        return series.update(series.idAt(i), series.dayAt(i), 150 + rnd.nextDouble() * 10);
+    }
+
+    // Remove one entry and put it back so the size stays put
+    @Benchmark
+    public int removeAndReAdd() {
+        int i = rnd.nextInt(series.size());
+        long id = series.idAt(i);
+        int day = series.dayAt(i);
+        double w = series.weightAt(i);
+        series.remove(id);
+        return series.add(id, day, w);
+    }
+
+    @Benchmark
+    public int lowerBound() {
+        return series.lowerBound(10_000 + rnd.nextInt(size));
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return series.indexOf(1 + rnd.nextInt(size));
+    }
+}
@@ -0,0 +1,69 @@
+package com.zybooks.weighttracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental {@link WeightStats} updates against a full recompute, to keep an eye on how far
+ * apart the two paths are as the history grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WeightStatsBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private double[] weights;
+    private WeightSeries series;
+    private Random rnd;
+
+    @Setup
+    public void setUp() {
+        rnd = new Random(5);
+        weights = new double[size];
+        long[] ids = new long[size];
+        int[] days = new int[size];
+        double w = 200;
+        for (int i = 0; i < size; i++) {
+            w += rnd.nextGaussian() * 0.5 - 0.02;
+            weights[i] = w;
+            ids[i] = i + 1;
+            days[i] = i;
+        }
+        series = new WeightSeries(1, ids, days, weights.clone(), size);
+    }
+
+    @Benchmark
+    public WeightStats recompute() {
+        return WeightStats.recompute(weights, size);
+    }
+
+    // An edit in the middle of the history, kept up to date incrementally by the series
+    @Benchmark
+    public double editMiddle() {
+        int i = rnd.nextInt(size);
+        series.update(series.idAt(i), series.dayAt(i), weights[i] + rnd.nextGaussian());
+        return series.getStats().getMean();
+    }
+
+    // Merging a day's worth of imported entries into the running totals
+    @Benchmark
+    public double batchMerge() {
+        WeightStats total = new WeightStats(size, 180, 5_000, 150, 210, 170, 200, 160);
+        WeightStats batch = new WeightStats();
+        for (int i = 0; i < 30; i++) batch.add(150 + rnd.nextDouble() * 10);
+        total.onBatchAdded(batch, series);
+        return total.getStdDev();
+    }
+}
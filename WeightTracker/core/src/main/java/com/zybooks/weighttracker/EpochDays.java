@@ -0,0 +1,84 @@
+package com.zybooks.weighttracker;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+// Converts between typed dates and epoch days (days since 1970-01-01) so entries can be
+// stored, sorted and range-filtered as plain integers.
+// Written by hand because java.time needs API 26 and minSdk is 24.
+public final class EpochDays {
+
+    // Returned by parse() when the text is not a real calendar date
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    // Anything outside this range is treated as a typo rather than a real weigh-in
+    private static final int MIN_YEAR = 1900;
+    private static final int MAX_YEAR = 2999;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private EpochDays() { }
+
+    // Parses YYYY-MM-DD (also YYYY/MM/DD, MM/DD/YYYY and MM-DD-YYYY, single digits allowed)
+    public static int parse(String text) {
+        if (text == null) return INVALID;
+        String[] parts = text.trim().split("[-/.]");
+        if (parts.length != 3) return INVALID;
+        try {
+            int a = Integer.parseInt(parts[0]);
+            int b = Integer.parseInt(parts[1]);
+            int c = Integer.parseInt(parts[2]);
+            // year first if the first part has four digits, otherwise month/day/year
+            return parts[0].length() == 4 ? of(a, b, c) : of(c, a, b);
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+
+    // Epoch day for a calendar date, or INVALID if the date does not exist
+    public static int of(int year, int month, int day) {
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12) return INVALID;
+        if (day < 1 || day > daysInMonth(year, month)) return INVALID;
+
+        // days-from-civil: shift the year to start in March so Feb 29 falls at the end
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400; // years are always positive here
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    // Formats an epoch day as YYYY-MM-DD
+    public static String format(int epochDay) {
+        // civil-from-days: inverse of of() above
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month, day);
+    }
+
+    // Today's epoch day in the device's time zone
+    public static int today() {
+        long now = System.currentTimeMillis();
+        return (int) Math.floorDiv(now + TimeZone.getDefault().getOffset(now), MILLIS_PER_DAY);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
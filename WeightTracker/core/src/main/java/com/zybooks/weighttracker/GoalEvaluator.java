@@ -0,0 +1,116 @@
+package com.zybooks.weighttracker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Tracks, per user, whether the newest weight is above the goal or at/under it, and reports only
+// the moments that flips. Callers tell it what changed (the goal, or the newest weight after an add,
+// edit or delete); each call is a comparison against the state kept in memory, never a history scan.
+//
+// Only ABOVE -> REACHED and REACHED -> ABOVE are reported. Without a goal or without entries the
+// state is UNKNOWN, and leaving UNKNOWN (first entry, first goal) sets a baseline quietly.
+// A state change is saved through the Store before it is reported, and the first call for a user
+// compares the saved state with the stored goal and weight, so a flip that happened just before the
+// process died is still reported once.
+public final class GoalEvaluator {
+
+    public static final int STATE_UNKNOWN = 0; // no goal or no entries
+    public static final int STATE_ABOVE   = 1;
+    public static final int STATE_REACHED = 2; // newest weight at or under the goal
+
+    // What's stored for a user; latest is NaN when they have no entries
+    public static final class Snapshot {
+        public final double goal;
+        public final double latest;
+        public final int state;
+        public final int crossings;
+
+        public Snapshot(double goal, double latest, int state, int crossings) {
+            this.goal = goal;
+            this.latest = latest;
+            this.state = state;
+            this.crossings = crossings;
+        }
+    }
+
+    public interface Store {
+        Snapshot load(long userId);
+        void save(long userId, int state, int crossings);
+    }
+
+    // Called on the thread that reported the change, after the new state is saved.
+    // crossing counts the user's ABOVE -> REACHED flips so far (stable per crossing, for dedupe).
+    public interface Listener {
+        void onCrossed(long userId, int from, int to, int crossing, double latest, double goal);
+    }
+
+    private static final class UserState {
+        double goal;
+        double latest;
+        int state;
+        int crossings;
+    }
+
+    private final Store store;
+    private final Listener listener;
+    private final Map<Long, UserState> users = new HashMap<>();
+
+    public GoalEvaluator(Store store, Listener listener) {
+        this.store = store;
+        this.listener = listener;
+    }
+
+    // The goal was set or changed (0 = no goal)
+    public synchronized void onGoalChanged(long userId, double goal) {
+        UserState u = user(userId);
+        u.goal = goal;
+        evaluate(userId, u);
+    }
+
+    // The newest entry changed: a new latest entry, an edit, or a delete (NaN = no entries left)
+    public synchronized void onLatestChanged(long userId, double latest) {
+        UserState u = user(userId);
+        u.latest = latest;
+        evaluate(userId, u);
+    }
+
+    public synchronized int stateOf(long userId) {
+        return user(userId).state;
+    }
+
+    // Drops a user's in-memory state (it is reloaded from the Store on next use)
+    public synchronized void forget(long userId) {
+        users.remove(userId);
+    }
+
+    static int stateFor(double goal, double latest) {
+        if (goal <= 0 || Double.isNaN(latest)) return STATE_UNKNOWN;
+        return latest <= goal ? STATE_REACHED : STATE_ABOVE;
+    }
+
+    private UserState user(long userId) {
+        UserState u = users.get(userId);
+        if (u == null) {
+            Snapshot s = store.load(userId);
+            u = new UserState();
+            u.goal = s.goal;
+            u.latest = s.latest;
+            u.state = s.state;
+            u.crossings = s.crossings;
+            users.put(userId, u);
+            evaluate(userId, u); // catch up on a change that was saved but never evaluated
+        }
+        return u;
+    }
+
+    private void evaluate(long userId, UserState u) {
+        int next = stateFor(u.goal, u.latest);
+        if (next == u.state) return;
+        int from = u.state;
+        boolean crossed = from != STATE_UNKNOWN && next != STATE_UNKNOWN;
+        u.state = next;
+        if (crossed && next == STATE_REACHED) u.crossings++;
+        store.save(userId, u.state, u.crossings);
+        if (crossed) listener.onCrossed(userId, from, next, u.crossings, u.latest, u.goal);
+    }
+}
@@ -0,0 +1,78 @@
+package com.zybooks.weighttracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram for hot paths: recording is a few atomic adds, no allocation, no lock,
+// so any thread can record while another reads percentiles.
+//
+// Buckets are log-linear: each power of two is split into SUB_BUCKETS equal steps, so a reported
+// percentile is within about 1 / SUB_BUCKETS (12.5%) of the true value at any scale, from
+// nanoseconds to minutes. Percentiles are read from a copy of the counts, so they can be a few
+// samples behind a recording that's in progress.
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values of 2^(MAX_EXPONENT + 1) ns (about 37 minutes) and up all land in one overflow bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int OVERFLOW = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+    private static final int BUCKETS = OVERFLOW + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    // Value at or below which fraction p (0..1] of the samples fall (upper edge of its bucket,
+    // capped at the largest value seen); 0 if nothing was recorded
+    public long percentile(double p) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    // Bucket for a value: values under SUB_BUCKETS get one bucket each, then SUB_BUCKETS per power of two
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos); // >= SUB_BITS
+        if (exponent > MAX_EXPONENT) return OVERFLOW;
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that lands in a bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        if (bucket == OVERFLOW) return Long.MAX_VALUE;
+        int exponent = bucket / SUB_BUCKETS - 1 + SUB_BITS;
+        int sub = bucket % SUB_BUCKETS;
+        long step = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * step - 1;
+    }
+}
@@ -0,0 +1,143 @@
+package com.zybooks.weighttracker;
+
+// Largest-Triangle-Three-Buckets downsampling for the trend chart, cached per zoom level.
+//
+// Level L splits the series into buckets of 2^L points on a fixed grid (bucket k = points
+// [k * 2^L, (k + 1) * 2^L)) and keeps one point per bucket: the one that makes the largest triangle
+// with the point kept in the bucket before and the average of the bucket after. The first and last
+// points are always kept. Because the grid doesn't move with the viewport, a pan reuses every bucket
+// already worked out and a zoom reuses the level it lands on; an edit only throws away the buckets
+// from the edited point onward (each pick depends on the one before it).
+//
+// picks() never allocates; call ensureCapacity() (which may) whenever the source grows.
+public final class Lttb {
+
+    // Points to downsample, sorted by x
+    public interface Source {
+        int size();
+        double x(int index);
+        double y(int index);
+    }
+
+    private final Source source;
+    private int[][] picks = new int[0][]; // picks[L - 1][k] = index kept for bucket k of level L
+    private int[] valid = new int[0];     // buckets already worked out per level, from bucket 0
+
+    public Lttb(Source source) {
+        this.source = source;
+        ensureCapacity();
+    }
+
+    // Makes room for every level the current size needs (some slack so small appends don't reallocate)
+    public void ensureCapacity() {
+        int n = source.size();
+        int levels = levelsFor(n);
+        if (levels > picks.length) {
+            int[][] grown = new int[levels][];
+            int[] grownValid = new int[levels];
+            System.arraycopy(picks, 0, grown, 0, picks.length);
+            System.arraycopy(valid, 0, grownValid, 0, valid.length);
+            picks = grown;
+            valid = grownValid;
+        }
+        for (int level = 1; level <= levels; level++) {
+            int buckets = bucketCount(n, level);
+            int[] p = picks[level - 1];
+            if (p == null || p.length < buckets) {
+                int[] grown = new int[buckets + (buckets >> 1) + 4];
+                if (p != null) System.arraycopy(p, 0, grown, 0, valid[level - 1]);
+                picks[level - 1] = grown;
+            }
+        }
+    }
+
+    // Forgets picks that can depend on the point at index (call after an insert, edit or delete there)
+    public void invalidateFrom(int index) {
+        for (int level = 1; level <= valid.length; level++) {
+            // the bucket before also looks at this bucket's average
+            int bucket = (index >> level) - 1;
+            valid[level - 1] = Math.max(0, Math.min(valid[level - 1], bucket));
+        }
+    }
+
+    // Smallest level that shows count points as at most maxPoints buckets (0 = every point)
+    public int levelFor(int count, int maxPoints) {
+        int level = 0;
+        while (level < picks.length && bucketCount(count, level) > maxPoints) level++;
+        return level;
+    }
+
+    // Writes the indexes to draw for points [from, to) at a level into out and returns how many.
+    // out needs room for bucketCount(to - from, level) + 1 entries.
+    public int picks(int level, int from, int to, int[] out) {
+        if (from >= to) return 0;
+        level = Math.min(level, picks.length);
+        if (level == 0) {
+            for (int i = from; i < to; i++) out[i - from] = i;
+            return to - from;
+        }
+        int first = from >> level;
+        int last = (to - 1) >> level;
+        compute(level, last);
+        int[] p = picks[level - 1];
+        int count = 0;
+        for (int k = first; k <= last; k++) out[count++] = p[k];
+        return count;
+    }
+
+    // Number of buckets count points fill at a level
+    public static int bucketCount(int count, int level) {
+        return (count + (1 << level) - 1) >> level;
+    }
+
+    private static int levelsFor(int n) {
+        int levels = 0;
+        while (bucketCount(n, levels) > 2) levels++;
+        return levels;
+    }
+
+    // Works out buckets valid..upTo of a level, in order
+    private void compute(int level, int upTo) {
+        int[] p = picks[level - 1];
+        int n = source.size();
+        int width = 1 << level;
+        for (int k = valid[level - 1]; k <= upTo; k++) {
+            int start = k << level;
+            int end = Math.min(start + width, n);
+            if (k == 0) {
+                p[k] = 0; // always keep the first point
+            } else if (end == n) {
+                p[k] = n - 1; // and the last
+            } else {
+                p[k] = largestTriangle(p[k - 1], start, end, Math.min(end + width, n));
+            }
+        }
+        valid[level - 1] = Math.max(valid[level - 1], upTo + 1);
+    }
+
+    // Point in [start, end) making the largest triangle with point a and the average of [end, nextEnd)
+    private int largestTriangle(int a, int start, int end, int nextEnd) {
+        double cx = 0;
+        double cy = 0;
+        for (int i = end; i < nextEnd; i++) {
+            cx += source.x(i);
+            cy += source.y(i);
+        }
+        cx /= nextEnd - end;
+        cy /= nextEnd - end;
+
+        double ax = source.x(a);
+        double ay = source.y(a);
+        int best = start;
+        double bestArea = -1;
+        for (int i = start; i < end; i++) {
+            // twice the triangle's area; the factor doesn't change which is largest
+            double area = Math.abs((ax - cx) * (source.y(i) - ay) - (ax - source.x(i)) * (cy - ay));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,98 @@
+package com.zybooks.weighttracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Named counters and latency histograms, shared by the whole process.
+// Look a metric up once (usually into a static final field) and record into it from any thread;
+// recording never locks. Reading is meant for an overlay or a dump, not for hot paths.
+public final class MetricsRegistry {
+
+    // One timer's numbers at the moment it was read
+    public static final class TimerSnapshot {
+        public final String name;
+        public final long count;
+        public final long totalNanos;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+
+        TimerSnapshot(String name, LatencyHistogram h) {
+            this.name = name;
+            this.count = h.getCount();
+            this.totalNanos = h.getTotalNanos();
+            this.p50Nanos = h.percentile(0.50);
+            this.p99Nanos = h.percentile(0.99);
+            this.maxNanos = h.getMaxNanos();
+        }
+    }
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    // Timers that have recorded something, most total time first
+    public List<TimerSnapshot> timers() {
+        List<TimerSnapshot> out = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> e : timers.entrySet()) {
+            if (e.getValue().getCount() > 0) out.add(new TimerSnapshot(e.getKey(), e.getValue()));
+        }
+        out.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        return out;
+    }
+
+    // Counter values by name
+    public Map<String, Long> counters() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) out.put(e.getKey(), e.getValue().sum());
+        return out;
+    }
+
+    // Everything as a JSON object: {"timestamp", "timers": [{name, count, ...}], "counters": {name: value}}.
+    // Times are in microseconds.
+    public String toJson(long timestampMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"timestamp\": ").append(timestampMillis).append(",\n  \"timers\": [");
+        List<TimerSnapshot> ts = timers();
+        for (int i = 0; i < ts.size(); i++) {
+            TimerSnapshot t = ts.get(i);
+            sb.append(i == 0 ? "\n" : ",\n").append(String.format(Locale.US,
+                    "    {\"name\": %s, \"count\": %d, \"totalMicros\": %.1f, \"p50Micros\": %.1f, " +
+                            "\"p99Micros\": %.1f, \"maxMicros\": %.1f}",
+                    quote(t.name), t.count, t.totalNanos / 1e3, t.p50Nanos / 1e3, t.p99Nanos / 1e3,
+                    t.maxNanos / 1e3));
+        }
+        sb.append(ts.isEmpty() ? "],\n" : "\n  ],\n").append("  \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Long> e : counters().entrySet()) {
+            sb.append(first ? "\n" : ",\n").append("    ").append(quote(e.getKey())).append(": ").append(e.getValue());
+            first = false;
+        }
+        sb.append(first ? "}\n}\n" : "\n  }\n}\n");
+        return sb.toString();
+    }
+
+    // Metric names are ours, but escape anyway so a stray quote can't break the file
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
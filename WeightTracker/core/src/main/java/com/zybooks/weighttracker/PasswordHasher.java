@@ -0,0 +1,166 @@
+package com.zybooks.weighttracker;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Locale;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Salted PBKDF2 hashes for passwords and security answers.
+//
+// Stored form: "pbkdf2-sha1$<iterations>$<salt hex>$<hash hex>". The iteration count travels with
+// each hash, so raising it later only means rehashing on the next successful login (needsRehash).
+// HMAC-SHA1 because PBKDF2WithHmacSHA256 needs API 26 and minSdk is 24; PBKDF2 only uses it as a PRF.
+//
+// The iteration count is calibrated on the device the first time it's needed: time a small probe,
+// scale it to targetMillis, and save the result through Settings. Hashing is slow on purpose, so
+// only call hash/verify off the main thread.
+public final class PasswordHasher {
+
+    static final String PREFIX = "pbkdf2-sha1$";
+    public static final int MIN_ITERATIONS = 10_000;
+    public static final int MAX_ITERATIONS = 2_000_000;
+    // Iterations timed to calibrate (enough to get past timer noise)
+    private static final int PROBE_ITERATIONS = 20_000;
+    private static final int SALT_BYTES = 16;
+    // One SHA-1 block. A longer key runs every iteration again per extra block, and an attacker only
+    // needs the first block to check a guess, so anything past 160 bits is cost only we pay.
+    // Older 256-bit hashes still verify (the length comes from the stored hash) and get rehashed.
+    static final int KEY_BITS = 160;
+
+    // Where the calibrated count is kept between runs (0 = not calibrated yet)
+    public interface Settings {
+        int loadIterations();
+        void saveIterations(int iterations);
+    }
+
+    private final Settings settings;
+    private final long targetMillis;
+    private final SecureRandom random = new SecureRandom();
+    private int iterations; // 0 until fixed or calibrated (guarded by this)
+
+    // Fixed iteration count (tests and benchmarks)
+    public PasswordHasher(int iterations) {
+        this.settings = null;
+        this.targetMillis = 0;
+        this.iterations = iterations;
+    }
+
+    // Calibrates to about targetMillis per hash on first use and remembers the result
+    public PasswordHasher(Settings settings, long targetMillis) {
+        this.settings = settings;
+        this.targetMillis = targetMillis;
+    }
+
+    // Iteration count for new hashes, calibrating first if needed
+    public synchronized int iterations() {
+        if (iterations == 0) {
+            int saved = settings.loadIterations();
+            if (saved > 0) {
+                iterations = saved;
+            } else {
+                iterations = calibrate(targetMillis);
+                settings.saveIterations(iterations);
+            }
+        }
+        return iterations;
+    }
+
+    public String hash(String secret) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        int n = iterations();
+        return PREFIX + n + "$" + hex(salt) + "$" + hex(derive(secret, salt, n));
+    }
+
+    // True if secret matches stored. Plain text left over from before hashing is compared as is.
+    public boolean verify(String secret, String stored) {
+        if (stored == null || secret == null) return false;
+        if (!isHash(stored)) {
+            return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                    secret.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) return false;
+        int n;
+        try {
+            n = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        byte[] salt = unhex(parts[1]);
+        byte[] want = unhex(parts[2]);
+        if (n <= 0 || salt == null || want == null || want.length == 0) return false;
+        return MessageDigest.isEqual(want, derive(secret, salt, n, want.length * 8));
+    }
+
+    // Plain text, hashed with fewer iterations than new hashes get, or an older key length
+    public boolean needsRehash(String stored) {
+        if (!isHash(stored)) return true;
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3 || parts[2].length() != KEY_BITS / 4) return true;
+        try {
+            return Integer.parseInt(parts[0]) < iterations();
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public static boolean isHash(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    // Security answers are matched ignoring case and surrounding spaces, so hash them that way
+    public static String normalizeAnswer(String answer) {
+        return answer == null ? "" : answer.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Iterations that take about targetMillis on this device (clamped, rounded to a thousand)
+    public static int calibrate(long targetMillis) {
+        byte[] salt = new byte[SALT_BYTES];
+        derive("warm-up", salt, 1_000);
+        long start = System.nanoTime();
+        derive("calibration", salt, PROBE_ITERATIONS);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        long n = PROBE_ITERATIONS * targetMillis * 1_000_000L / nanos;
+        n = Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, n));
+        return (int) (n / 1_000 * 1_000);
+    }
+
+    static byte[] derive(String secret, byte[] salt, int iterations) {
+        return derive(secret, salt, iterations, KEY_BITS);
+    }
+
+    static byte[] derive(String secret, byte[] salt, int iterations, int keyBits) {
+        PBEKeySpec spec = new PBEKeySpec(secret.toCharArray(), salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    // null if s isn't valid hex
+    private static byte[] unhex(String s) {
+        if (s.length() % 2 != 0) return null;
+        byte[] out = new byte[s.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            int hi = Character.digit(s.charAt(2 * i), 16);
+            int lo = Character.digit(s.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) return null;
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,106 @@
+package com.zybooks.weighttracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Statements that took longer than a threshold, each with the shape of its bound arguments and
+// its query plan. Only the newest entries are kept (a fixed-size ring, oldest overwritten), so it
+// can stay on all the time. Recording only happens on the slow path, so a plain lock is fine.
+public final class SlowQueryLog {
+
+    // One slow statement
+    public static final class Entry {
+        public final long timeMillis;  // wall clock when it was recorded
+        public final String sql;
+        public final String args;      // see argShape
+        public final long nanos;
+        public final String plan;      // EXPLAIN QUERY PLAN steps, one per line
+
+        Entry(long timeMillis, String sql, String args, long nanos, String plan) {
+            this.timeMillis = timeMillis;
+            this.sql = sql;
+            this.args = args;
+            this.nanos = nanos;
+            this.plan = plan;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%.2f ms %s %s%n%s", nanos / 1e6, sql, args, plan);
+        }
+    }
+
+    private final Entry[] ring;
+    private int next;       // slot the next entry goes in
+    private long recorded;  // every entry ever recorded, including overwritten ones
+    private volatile long thresholdNanos;
+
+    public SlowQueryLog(int capacity, long thresholdNanos) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.ring = new Entry[capacity];
+        setThresholdNanos(thresholdNanos);
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    // 0 records every statement (handy in tests)
+    public void setThresholdNanos(long thresholdNanos) {
+        if (thresholdNanos < 0) throw new IllegalArgumentException("threshold can't be negative");
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    // Cheap check callers make before doing the work of building an entry (the plan especially)
+    public boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    public synchronized void record(String sql, String args, long nanos, String plan) {
+        ring[next] = new Entry(System.currentTimeMillis(), sql, args, nanos, plan);
+        next = (next + 1) % ring.length;
+        recorded++;
+    }
+
+    // The kept entries, newest first
+    public synchronized List<Entry> entries() {
+        List<Entry> out = new ArrayList<>(ring.length);
+        for (int i = 1; i <= ring.length; i++) {
+            Entry e = ring[Math.floorMod(next - i, ring.length)];
+            if (e == null) break;
+            out.add(e);
+        }
+        return out;
+    }
+
+    public synchronized long getRecorded() {
+        return recorded;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(ring, null);
+        next = 0;
+        recorded = 0;
+    }
+
+    // What was bound, without the values (they can be usernames, emails or password hashes):
+    // "(int, real, text[12], null)". Everything is bound as text, so numbers are recognized by form.
+    public static String argShape(String[] args) {
+        if (args == null || args.length == 0) return "()";
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(shapeOf(args[i]));
+        }
+        return sb.append(')').toString();
+    }
+
+    private static String shapeOf(String arg) {
+        if (arg == null) return "null";
+        if (arg.matches("-?\\d{1,19}")) return "int";
+        if (arg.matches("-?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?")) return "real";
+        return "text[" + arg.length() + "]";
+    }
+}
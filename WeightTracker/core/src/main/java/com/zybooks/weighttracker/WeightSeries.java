@@ -0,0 +1,231 @@
+package com.zybooks.weighttracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+// In-memory copy of one user's whole history as parallel primitive arrays (id, epoch day, weight),
+// oldest first: 20 bytes an entry, no per-row objects, no Cursor column lookups when reading.
+// New entries are usually the newest, so an add is normally an append at the end.
+//
+// Owned by WeightRepository, which applies every write it makes to the database here as well
+// (on the main thread, in commit order). Not thread-safe: read and edit it on the main thread only.
+// Also keeps the user's running WeightStats (seeded from the saved row when loaded from the
+// database), using the arrays as its Series, and serves as the trend chart's Lttb.Source
+// (x = epoch day, y = weight).
+//
+// min()/max() come from a count of each distinct weight, built the first time one is asked for
+// (when a stored extreme is removed or edited) and kept up to date after that. An edit then costs
+// O(log k) for k distinct weights, which stays small because weights are entered to 0.1 lb.
+// Moving an entry still shifts the arrays after it (one arraycopy).
+public final class WeightSeries implements WeightStats.Series, Lttb.Source {
+
+    // Told about every change by index (0 = oldest), after the arrays were updated
+    public interface Listener {
+        void onInserted(int index);
+        void onRemoved(int index);
+        void onChanged(int index);
+    }
+
+    private final long userId;
+    private long[] ids;
+    private int[] days;
+    private double[] weights;
+    private int size;
+    private final WeightStats stats;
+    private final List<Listener> listeners = new ArrayList<>();
+    private TreeMap<Double, Integer> weightCounts; // null until min()/max() first need it
+
+    // Takes ownership of the arrays; the first size entries must be sorted by (day, id)
+    public WeightSeries(long userId, long[] ids, int[] days, double[] weights, int size) {
+        this(userId, ids, days, weights, size, WeightStats.recompute(weights, size));
+    }
+
+    // Same, starting from stats already kept for exactly these entries (the saved per-user row),
+    // so loading doesn't walk the history a second time. Takes ownership of stats as well.
+    public WeightSeries(long userId, long[] ids, int[] days, double[] weights, int size, WeightStats stats) {
+        if (stats.getCount() != size) {
+            throw new IllegalArgumentException("stats cover " + stats.getCount() + " entries, not " + size);
+        }
+        this.userId = userId;
+        this.ids = ids;
+        this.days = days;
+        this.weights = weights;
+        this.size = size;
+        this.stats = stats;
+    }
+
+    public long getUserId() { return userId; }
+    public int size() { return size; }
+    public long idAt(int index) { return ids[index]; }
+    public int dayAt(int index) { return days[index]; }
+    public double weightAt(int index) { return weights[index]; }
+
+    // Running stats over every entry (kept up to date by the edits below)
+    public WeightStats getStats() { return stats; }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Index of the first entry on or after day (size() if there is none)
+    public int lowerBound(int day) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Index of an entry, or -1. Scans from the newest end, where edits usually happen.
+    public int indexOf(long id) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    // Adds a stored entry at its sorted position and returns that index
+    public int add(long id, int day, double weight) {
+        int index = insertAt(id, day, weight);
+        stats.onAdded(weight, this);
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onInserted(index);
+        return index;
+    }
+
+    // Removes an entry; returns false if it isn't in this series
+    public boolean remove(long id) {
+        int index = indexOf(id);
+        if (index < 0) return false;
+        double weight = weights[index];
+        removeAt(index);
+        stats.onRemoved(weight, this);
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onRemoved(index);
+        return true;
+    }
+
+    // Applies an edit; a changed date may move the entry. Returns false if it isn't in this series.
+    public boolean update(long id, int day, double weight) {
+        int index = indexOf(id);
+        if (index < 0) return false;
+        double old = weights[index];
+        boolean staysPut = (index == 0 || before(days[index - 1], ids[index - 1], day, id))
+                && (index == size - 1 || before(day, id, days[index + 1], ids[index + 1]));
+        if (staysPut) {
+            days[index] = day;
+            weights[index] = weight;
+            uncount(old);
+            count(weight);
+            stats.onReplaced(old, weight, this);
+            for (int i = 0; i < listeners.size(); i++) listeners.get(i).onChanged(index);
+            return true;
+        }
+        removeAt(index);
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onRemoved(index);
+        int to = insertAt(id, day, weight);
+        stats.onReplaced(old, weight, this);
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onInserted(to);
+        return true;
+    }
+
+    // === Lttb.Source ===
+
+    @Override
+    public double x(int index) { return days[index]; }
+
+    @Override
+    public double y(int index) { return weights[index]; }
+
+    // === WeightStats.Series over the arrays ===
+
+    @Override
+    public double min() { return size > 0 ? weightCounts().firstKey() : 0; }
+
+    @Override
+    public double max() { return size > 0 ? weightCounts().lastKey() : 0; }
+
+    @Override
+    public double first() { return size > 0 ? weights[0] : 0; }
+
+    @Override
+    public double last() { return size > 0 ? weights[size - 1] : 0; }
+
+    @Override
+    public int recent(double[] out) {
+        int n = Math.min(out.length, size);
+        for (int i = 0; i < n; i++) out[i] = weights[size - 1 - i];
+        return n;
+    }
+
+    private int insertAt(long id, int day, double weight) {
+        // binary search for the first entry that sorts after (day, id)
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (before(days[mid], ids[mid], day, id)) lo = mid + 1;
+            else hi = mid;
+        }
+        if (size == ids.length) grow();
+        int tail = size - lo;
+        System.arraycopy(ids, lo, ids, lo + 1, tail);
+        System.arraycopy(days, lo, days, lo + 1, tail);
+        System.arraycopy(weights, lo, weights, lo + 1, tail);
+        ids[lo] = id;
+        days[lo] = day;
+        weights[lo] = weight;
+        size++;
+        count(weight);
+        return lo;
+    }
+
+    private void removeAt(int index) {
+        uncount(weights[index]);
+        int tail = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(days, index + 1, days, index, tail);
+        System.arraycopy(weights, index + 1, weights, index, tail);
+        size--;
+    }
+
+    // The distinct-weight counts, built from the arrays on first use (one pass)
+    private TreeMap<Double, Integer> weightCounts() {
+        if (weightCounts == null) {
+            weightCounts = new TreeMap<>();
+            for (int i = 0; i < size; i++) weightCounts.merge(weights[i], 1, Integer::sum);
+        }
+        return weightCounts;
+    }
+
+    private void count(double weight) {
+        if (weightCounts != null) weightCounts.merge(weight, 1, Integer::sum);
+    }
+
+    private void uncount(double weight) {
+        if (weightCounts == null) return;
+        Integer n = weightCounts.get(weight);
+        if (n == null) return;
+        if (n == 1) weightCounts.remove(weight);
+        else weightCounts.put(weight, n - 1);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        days = Arrays.copyOf(days, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+    }
+
+    // True if (dayA, idA) sorts strictly before (dayB, idB)
+    private static boolean before(int dayA, long idA, int dayB, long idB) {
+        return dayA != dayB ? dayA < dayB : idA < idB;
+    }
+}
@@ -0,0 +1,192 @@
+package com.zybooks.weighttracker;
+
+// Running statistics for one user's weight series: count, mean, variance, min/max,
+// exponential moving average and total change (newest minus oldest).
+//
+// Count, mean and variance are kept incrementally (Welford's method, which can also take a value
+// back out). Everything else is corrected after each edit with a few small lookups against the
+// Series, so the work per edit stays bounded no matter how long the history is (as long as the
+// Series answers min/max without a scan: WeightSeries keeps a sorted count, DatabaseHelper reads
+// the month rollups).
+public class WeightStats {
+
+    // EMA covers the newest EMA_WINDOW entries, seeded with the oldest of them
+    public static final int EMA_WINDOW = 30;
+    public static final double EMA_ALPHA = 2.0 / (10 + 1); // 10-entry span
+
+    // Bounded lookups against the stored series (after the edit has been applied)
+    public interface Series {
+        double min();
+        double max();
+        double first(); // oldest entry's weight
+        double last();  // newest entry's weight
+        // Fills out with up to out.length weights, newest first; returns how many were filled
+        int recent(double[] out);
+    }
+
+    private long count;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+    private double min;
+    private double max;
+    private double ema;
+    private double first;
+    private double last;
+
+    // Scratch space for the EMA window (only touched while refreshing)
+    private final double[] window = new double[EMA_WINDOW];
+
+    public WeightStats() { }
+
+    // Restores a saved state (see the getters for what each value means)
+    public WeightStats(long count, double mean, double m2, double min, double max,
+                       double ema, double first, double last) {
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+        this.min = min;
+        this.max = max;
+        this.ema = ema;
+        this.first = first;
+        this.last = last;
+    }
+
+    // Call after a weight was stored
+    public void onAdded(double weight, Series series) {
+        addMoments(weight);
+        min = count == 1 ? weight : Math.min(min, weight);
+        max = count == 1 ? weight : Math.max(max, weight);
+        refreshEnds(series);
+    }
+
+    // Call after a weight was removed
+    public void onRemoved(double weight, Series series) {
+        removeMoments(weight);
+        if (count == 0) {
+            clear();
+            return;
+        }
+        // only a removed extreme needs a lookup
+        if (weight <= min) min = series.min();
+        if (weight >= max) max = series.max();
+        refreshEnds(series);
+    }
+
+    // Call after a stored weight changed from oldWeight to newWeight (its date may have changed too)
+    public void onReplaced(double oldWeight, double newWeight, Series series) {
+        removeMoments(oldWeight);
+        addMoments(newWeight);
+        if (oldWeight <= min) min = series.min();
+        else min = Math.min(min, newWeight);
+        if (oldWeight >= max) max = series.max();
+        else max = Math.max(max, newWeight);
+        refreshEnds(series);
+    }
+
+    // Call after a batch of weights was stored; batch holds the count/mean/m2/min/max of just
+    // that batch (built with add())
+    public void onBatchAdded(WeightStats batch, Series series) {
+        if (batch.count == 0) return;
+        if (count == 0) {
+            count = batch.count;
+            mean = batch.mean;
+            m2 = batch.m2;
+            min = batch.min;
+            max = batch.max;
+        } else {
+            // Chan et al. parallel combination of two sets of moments
+            long n = count + batch.count;
+            double delta = batch.mean - mean;
+            mean += delta * batch.count / n;
+            m2 += batch.m2 + delta * delta * count * batch.count / n;
+            count = n;
+            min = Math.min(min, batch.min);
+            max = Math.max(max, batch.max);
+        }
+        refreshEnds(series);
+    }
+
+    // Adds a value to count/mean/variance/min/max only (for building a batch)
+    public void add(double weight) {
+        addMoments(weight);
+        min = count == 1 ? weight : Math.min(min, weight);
+        max = count == 1 ? weight : Math.max(max, weight);
+    }
+
+    // Full recomputation from a series in date order (oldest first); used for backfills and tests
+    public static WeightStats recompute(double[] oldestFirst, int n) {
+        WeightStats s = new WeightStats();
+        for (int i = 0; i < n; i++) s.add(oldestFirst[i]);
+        if (n > 0) {
+            s.first = oldestFirst[0];
+            s.last = oldestFirst[n - 1];
+            int from = Math.max(0, n - EMA_WINDOW);
+            double e = oldestFirst[from];
+            for (int i = from + 1; i < n; i++) e += EMA_ALPHA * (oldestFirst[i] - e);
+            s.ema = e;
+        }
+        return s;
+    }
+
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+    public double getM2() { return m2; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    public double getEma() { return ema; }
+    public double getFirst() { return first; }
+    public double getLast() { return last; }
+
+    // Sample variance (0 until there are two entries)
+    public double getVariance() { return count > 1 ? m2 / (count - 1) : 0; }
+
+    public double getStdDev() { return Math.sqrt(getVariance()); }
+
+    // Newest minus oldest (negative means weight lost)
+    public double getTotalChange() { return last - first; }
+
+    private void addMoments(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    private void removeMoments(double x) {
+        if (count <= 1) {
+            count = 0;
+            mean = 0;
+            m2 = 0;
+            return;
+        }
+        double oldMean = mean;
+        mean = (count * mean - x) / (count - 1);
+        m2 = Math.max(0, m2 - (x - oldMean) * (x - mean)); // rounding can dip just below zero
+        count--;
+    }
+
+    // Oldest/newest weight and the EMA all depend on date order, so read them back from the series
+    private void refreshEnds(Series series) {
+        first = series.first();
+        last = series.last();
+        int n = series.recent(window);
+        if (n == 0) {
+            ema = 0;
+            return;
+        }
+        double e = window[n - 1];
+        for (int i = n - 2; i >= 0; i--) e += EMA_ALPHA * (window[i] - e);
+        ema = e;
+    }
+
+    private void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        min = 0;
+        max = 0;
+        ema = 0;
+        first = 0;
+        last = 0;
+    }
+}
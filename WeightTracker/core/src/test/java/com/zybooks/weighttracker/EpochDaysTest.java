@@ -0,0 +1,48 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link EpochDays} parsing and formatting.
+ */
+public class EpochDaysTest {
+
+    @Test
+    public void of_matchesKnownEpochDays() {
+        assertEquals(0, EpochDays.of(1970, 1, 1));
+        assertEquals(-1, EpochDays.of(1969, 12, 31));
+        assertEquals(10957, EpochDays.of(2000, 1, 1));
+        assertEquals(20089, EpochDays.of(2025, 1, 1));
+    }
+
+    @Test
+    public void parse_acceptsCommonFormats() {
+        int expected = EpochDays.of(2025, 1, 6);
+        assertEquals(expected, EpochDays.parse("2025-01-06"));
+        assertEquals(expected, EpochDays.parse(" 2025-1-6 "));
+        assertEquals(expected, EpochDays.parse("2025/01/06"));
+        assertEquals(expected, EpochDays.parse("01/06/2025"));
+        assertEquals(expected, EpochDays.parse("1-6-2025"));
+    }
+
+    @Test
+    public void parse_rejectsImpossibleDates() {
+        assertEquals(EpochDays.INVALID, EpochDays.parse(null));
+        assertEquals(EpochDays.INVALID, EpochDays.parse(""));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("yesterday"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("2025-02-29"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("2025-13-01"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("0025-01-01"));
+        assertNotEquals(EpochDays.INVALID, EpochDays.parse("2024-02-29"));
+    }
+
+    @Test
+    public void format_roundTripsEveryDayAcrossCenturies() {
+        for (int day = EpochDays.of(1900, 1, 1); day <= EpochDays.of(2100, 12, 31); day++) {
+            assertEquals(day, EpochDays.parse(EpochDays.format(day)));
+        }
+        assertEquals("2000-02-29", EpochDays.format(EpochDays.of(2000, 2, 29)));
+    }
+}
@@ -0,0 +1,226 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GoalEvaluator}: only real crossings are reported, backdated entries
+ * and deletes are judged by the newest entry, and the saved state carries over to a new instance.
+ */
+public class GoalEvaluatorTest {
+
+    private static final long USER = 7;
+
+    // In-memory stand-in for the users/user_stats rows
+    private static class MemoryStore implements GoalEvaluator.Store {
+        double goal;
+        double latest = Double.NaN;
+        final Map<Long, int[]> saved = new HashMap<>();
+
+        @Override
+        public GoalEvaluator.Snapshot load(long userId) {
+            int[] s = saved.get(userId);
+            return new GoalEvaluator.Snapshot(goal, latest, s == null ? 0 : s[0], s == null ? 0 : s[1]);
+        }
+
+        @Override
+        public void save(long userId, int state, int crossings) {
+            saved.put(userId, new int[]{state, crossings});
+        }
+    }
+
+    private MemoryStore store;
+    private List<String> events;
+    private GoalEvaluator goals;
+    private WeightSeries history;
+    private long nextId;
+
+    @Before
+    public void setUp() {
+        store = new MemoryStore();
+        events = new ArrayList<>();
+        goals = newEvaluator();
+        history = new WeightSeries(USER, new long[0], new int[0], new double[0], 0);
+        nextId = 1;
+    }
+
+    @Test
+    public void addingBelowGoal_reportsOneCrossing() {
+        setGoal(150);
+        add(100, 160);
+        add(101, 151);
+        add(102, 149);
+        add(103, 148); // still under: nothing new
+        add(104, 150); // at the goal counts as reached
+
+        assertEquals(Arrays.asList("reached 1"), events);
+    }
+
+    @Test
+    public void backdatedEntry_doesNotCountAsCurrentWeight() {
+        setGoal(150);
+        add(100, 160);
+        add(50, 140); // older than the newest entry
+
+        assertTrue(events.isEmpty());
+        assertEquals(GoalEvaluator.STATE_ABOVE, goals.stateOf(USER));
+    }
+
+    @Test
+    public void backdatedEntry_afterTheNewestOneIsDeleted_becomesCurrent() {
+        setGoal(150);
+        add(100, 149);
+        long newest = add(120, 155);
+        add(110, 152);
+        events.clear();
+
+        delete(newest); // the 152 from day 110 is now newest: still above
+
+        assertTrue(events.isEmpty());
+        assertEquals(GoalEvaluator.STATE_ABOVE, goals.stateOf(USER));
+    }
+
+    @Test
+    public void deletingTheNewestEntry_canCrossEitherWay() {
+        setGoal(150);
+        add(100, 148);
+        long above = add(101, 155);
+        delete(above);
+        long aboveAgain = add(102, 156);
+        delete(aboveAgain);
+
+        assertEquals(Arrays.asList("above 0", "reached 1", "above 1", "reached 2"), events);
+    }
+
+    @Test
+    public void editingAnEntry_movesItInTime() {
+        setGoal(150);
+        long a = add(100, 160);
+        add(101, 149);
+        events.clear();
+
+        edit(a, 105, 160); // moved past the 149, so it's the newest again
+
+        assertEquals(Arrays.asList("above 1"), events);
+    }
+
+    @Test
+    public void changingTheGoal_isReevaluated() {
+        add(100, 155);
+        setGoal(150); // first goal: sets the baseline quietly
+        setGoal(160);
+        setGoal(150);
+        setGoal(0);   // no goal: quiet
+        setGoal(160); // back from no goal: quiet
+
+        assertEquals(Arrays.asList("reached 1", "above 1"), events);
+        assertEquals(GoalEvaluator.STATE_REACHED, goals.stateOf(USER));
+    }
+
+    @Test
+    public void savedState_carriesOverWithoutRepeatingTheAlert() {
+        setGoal(150);
+        add(100, 160);
+        add(101, 149);
+
+        GoalEvaluator restarted = newEvaluator();
+        assertEquals(GoalEvaluator.STATE_REACHED, restarted.stateOf(USER));
+        assertEquals(Arrays.asList("reached 1"), events);
+    }
+
+    @Test
+    public void changeSavedButNotEvaluated_isReportedOnNextLoad() {
+        setGoal(150);
+        add(100, 160);
+        // the process dies after writing a new entry but before evaluating it
+        store.latest = 149;
+
+        GoalEvaluator restarted = newEvaluator();
+        restarted.stateOf(USER);
+        assertEquals(Arrays.asList("reached 1"), events);
+    }
+
+    @Test
+    public void randomEdits_matchRecomputingFromTheNewestEntry() {
+        Random rnd = new Random(11);
+        int expectedState = GoalEvaluator.STATE_UNKNOWN;
+        int expectedCrossings = 0;
+        double goal = 0;
+        for (int op = 0; op < 5_000; op++) {
+            int choice = rnd.nextInt(10);
+            if (choice == 0) {
+                goal = rnd.nextInt(4) == 0 ? 0 : 140 + rnd.nextInt(20);
+                setGoal(goal);
+            } else if (choice < 6 || history.size() == 0) {
+                add(rnd.nextInt(200), 140 + rnd.nextInt(200) / 10.0);
+            } else if (choice < 8) {
+                int i = rnd.nextInt(history.size());
+                edit(history.idAt(i), rnd.nextInt(200), 140 + rnd.nextInt(200) / 10.0);
+            } else {
+                delete(history.idAt(rnd.nextInt(history.size())));
+            }
+
+            double latest = history.size() == 0 ? Double.NaN : history.weightAt(history.size() - 1);
+            int want = GoalEvaluator.stateFor(goal, latest);
+            if (want != expectedState) {
+                if (expectedState != GoalEvaluator.STATE_UNKNOWN && want != GoalEvaluator.STATE_UNKNOWN) {
+                    if (want == GoalEvaluator.STATE_REACHED) expectedCrossings++;
+                    assertEquals("op " + op, describe(want, expectedCrossings), events.get(events.size() - 1));
+                }
+                expectedState = want;
+            }
+            assertEquals("op " + op, expectedState, goals.stateOf(USER));
+            assertEquals("op " + op, expectedCrossings, store.saved.containsKey(USER) ? store.saved.get(USER)[1] : 0);
+        }
+    }
+
+    private GoalEvaluator newEvaluator() {
+        return new GoalEvaluator(store, (userId, from, to, crossing, latest, goal) -> {
+            assertEquals(USER, userId);
+            assertNotEquals(from, to);
+            events.add(describe(to, crossing));
+        });
+    }
+
+    private static String describe(int state, int crossing) {
+        return (state == GoalEvaluator.STATE_REACHED ? "reached " : "above ") + crossing;
+    }
+
+    // Each change updates the stand-in store first, the way the database write comes first in the app
+
+    private void setGoal(double goal) {
+        store.goal = goal;
+        goals.onGoalChanged(USER, goal);
+    }
+
+    private long add(int day, double weight) {
+        long id = nextId++;
+        history.add(id, day, weight);
+        latestChanged();
+        return id;
+    }
+
+    private void edit(long id, int day, double weight) {
+        history.update(id, day, weight);
+        latestChanged();
+    }
+
+    private void delete(long id) {
+        history.remove(id);
+        latestChanged();
+    }
+
+    private void latestChanged() {
+        store.latest = history.size() == 0 ? Double.NaN : history.weightAt(history.size() - 1);
+        goals.onLatestChanged(USER, store.latest);
+    }
+}
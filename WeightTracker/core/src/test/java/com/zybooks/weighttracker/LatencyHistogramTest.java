@@ -0,0 +1,84 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LatencyHistogram}: bucket edges line up, percentiles stay within the
+ * bucket resolution of exact ones, and concurrent recording doesn't lose samples.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverEveryValueWithoutGaps() {
+        long previousUpper = -1;
+        for (int b = 0; b < 300; b++) {
+            long upper = LatencyHistogram.upperBound(b);
+            assertEquals("bucket " + b, b, LatencyHistogram.bucketOf(previousUpper + 1));
+            assertEquals("bucket " + b, b, LatencyHistogram.bucketOf(upper));
+            previousUpper = upper;
+        }
+    }
+
+    @Test
+    public void percentiles_areWithinBucketResolution() {
+        Random rnd = new Random(3);
+        LatencyHistogram h = new LatencyHistogram();
+        long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) {
+            // mostly fast, with a slow tail, like real query timings
+            values[i] = rnd.nextInt(20) == 0 ? 5_000_000 + rnd.nextInt(50_000_000) : 20_000 + rnd.nextInt(200_000);
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double p : new double[]{0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(p * values.length) - 1];
+            long got = h.percentile(p);
+            assertTrue("p" + p + " " + got + " vs " + exact, got >= exact);
+            assertTrue("p" + p + " " + got + " vs " + exact, got <= exact + exact / LatencyHistogram.SUB_BUCKETS);
+        }
+        assertEquals(values[values.length - 1], h.getMaxNanos());
+        assertEquals(values[values.length - 1], h.percentile(1.0));
+        assertEquals(values.length, h.getCount());
+    }
+
+    @Test
+    public void empty_reportsZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.5));
+        assertEquals(0, h.getCount());
+    }
+
+    @Test
+    public void hugeAndNegativeValues_areClamped() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+
+        assertEquals(0, h.percentile(0.5));
+        assertEquals(Long.MAX_VALUE, h.percentile(1.0));
+    }
+
+    @Test
+    public void concurrentRecording_keepsEverySample() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long value = 1_000L * (t + 1);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) h.record(value);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(200_000, h.getCount());
+        assertEquals(50_000L * (1_000 + 2_000 + 3_000 + 4_000), h.getTotalNanos());
+        assertEquals(4_000, h.getMaxNanos());
+    }
+}
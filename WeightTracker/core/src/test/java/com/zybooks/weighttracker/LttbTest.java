@@ -0,0 +1,128 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link Lttb}: output size stays bounded, spikes and the ends survive, and
+ * the cached picks after pans and edits match a cache built from scratch.
+ */
+public class LttbTest {
+
+    @Test
+    public void picks_stayWithinPointBudget() {
+        WeightSeries series = series(20_000, 1);
+        Lttb lttb = new Lttb(series);
+        int maxPoints = 2 * 1080;
+        int[] out = new int[maxPoints + 1];
+
+        int level = lttb.levelFor(series.size(), maxPoints);
+        int n = lttb.picks(level, 0, series.size(), out);
+
+        assertTrue(level > 0);
+        assertTrue("got " + n, n <= maxPoints);
+        assertEquals(0, out[0]);
+        assertEquals(series.size() - 1, out[n - 1]);
+        for (int i = 1; i < n; i++) assertTrue(out[i] > out[i - 1]);
+    }
+
+    @Test
+    public void picks_keepASpike() {
+        int n = 10_000;
+        long[] ids = new long[n];
+        int[] days = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+            days[i] = i;
+            weights[i] = 180;
+        }
+        weights[4_321] = 240; // one bad reading
+        WeightSeries series = new WeightSeries(1, ids, days, weights, n);
+        Lttb lttb = new Lttb(series);
+        int[] out = new int[200];
+
+        int count = lttb.picks(lttb.levelFor(n, 100), 0, n, out);
+
+        boolean found = false;
+        for (int i = 0; i < count; i++) found |= out[i] == 4_321;
+        assertTrue("spike was dropped", found);
+    }
+
+    @Test
+    public void levelZero_returnsEveryPoint() {
+        WeightSeries series = series(50, 2);
+        Lttb lttb = new Lttb(series);
+        int[] out = new int[50];
+
+        assertEquals(0, lttb.levelFor(50, 100));
+        assertEquals(20, lttb.picks(0, 10, 30, out));
+        assertEquals(10, out[0]);
+        assertEquals(29, out[19]);
+    }
+
+    @Test
+    public void cachedPicks_matchScratchAfterPansAndEdits() {
+        Random rnd = new Random(7);
+        WeightSeries series = series(5_000, 3);
+        Lttb cached = new Lttb(series);
+        int[] a = new int[10_000];
+        int[] b = new int[10_000];
+        long nextId = 100_000;
+
+        for (int op = 0; op < 500; op++) {
+            // pan/zoom somewhere first so part of the cache is filled in
+            int from = rnd.nextInt(series.size());
+            int to = from + 1 + rnd.nextInt(series.size() - from);
+            int level = rnd.nextInt(8);
+            cached.picks(level, from, to, a);
+
+            switch (rnd.nextInt(3)) {
+                case 0: {
+                    // mostly new entries at the end, sometimes backdated
+                    int day = rnd.nextInt(4) == 0 ? rnd.nextInt(series.dayAt(series.size() - 1))
+                            : series.dayAt(series.size() - 1) + 1;
+                    int index = series.add(nextId++, day, 150 + rnd.nextInt(500) / 10.0);
+                    cached.ensureCapacity();
+                    cached.invalidateFrom(index);
+                    break;
+                }
+                case 1: {
+                    int index = rnd.nextInt(series.size());
+                    series.update(series.idAt(index), series.dayAt(index), 150 + rnd.nextInt(500) / 10.0);
+                    cached.invalidateFrom(index);
+                    break;
+                }
+                default: {
+                    int index = rnd.nextInt(series.size());
+                    series.remove(series.idAt(index));
+                    cached.invalidateFrom(index);
+                }
+            }
+
+            Lttb scratch = new Lttb(series);
+            for (int l = 0; l < 10; l++) {
+                int n = cached.picks(l, 0, series.size(), a);
+                assertEquals("op " + op + " level " + l, scratch.picks(l, 0, series.size(), b), n);
+                for (int i = 0; i < n; i++) assertEquals("op " + op + " level " + l, b[i], a[i]);
+            }
+        }
+    }
+
+    // n daily entries with a slow trend and noise
+    private static WeightSeries series(int n, long seed) {
+        Random rnd = new Random(seed);
+        long[] ids = new long[n];
+        int[] days = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+            days[i] = 18_000 + i;
+            weights[i] = 200 - i * 0.002 + rnd.nextGaussian();
+        }
+        return new WeightSeries(1, ids, days, weights, n);
+    }
+}
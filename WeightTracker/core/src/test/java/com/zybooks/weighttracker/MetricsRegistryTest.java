@@ -0,0 +1,56 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MetricsRegistry}: names map to one metric each, snapshots are ordered
+ * by total time, and the JSON dump has every metric in it.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void sameName_givesSameMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(registry.timer("db.addWeight"), registry.timer("db.addWeight"));
+        assertSame(registry.counter("rows"), registry.counter("rows"));
+    }
+
+    @Test
+    public void timers_skipUnusedAndSortByTotalTime() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("unused");
+        registry.timer("fast").record(1_000);
+        registry.timer("fast").record(1_000);
+        registry.timer("slow").record(50_000);
+
+        List<MetricsRegistry.TimerSnapshot> timers = registry.timers();
+        assertEquals(2, timers.size());
+        assertEquals("slow", timers.get(0).name);
+        assertEquals("fast", timers.get(1).name);
+        assertEquals(2, timers.get(1).count);
+    }
+
+    @Test
+    public void json_hasTimersAndCounters() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("ui.bindRow").record(2_000);
+        registry.counter("db.weightsInserted").add(7);
+        registry.counter("odd \"name\"").increment();
+
+        String json = registry.toJson(123);
+        assertTrue(json, json.contains("\"timestamp\": 123"));
+        assertTrue(json, json.contains("{\"name\": \"ui.bindRow\", \"count\": 1, \"totalMicros\": 2.0"));
+        assertTrue(json, json.contains("\"db.weightsInserted\": 7"));
+        assertTrue(json, json.contains("\"odd \\\"name\\\"\": 1"));
+    }
+
+    @Test
+    public void json_whenEmpty_isStillAnObject() {
+        assertEquals("{\n  \"timestamp\": 5,\n  \"timers\": [],\n  \"counters\": {}\n}\n",
+                new MetricsRegistry().toJson(5));
+    }
+}
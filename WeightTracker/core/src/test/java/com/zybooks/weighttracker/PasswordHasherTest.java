@@ -0,0 +1,110 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PasswordHasher}: round trips, salting, legacy plain text, and when
+ * a stored hash needs upgrading.
+ */
+public class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_ITERATIONS);
+
+    @Test
+    public void hash_verifiesOnlyTheSamePassword() {
+        String stored = hasher.hash("secret1");
+
+        assertTrue(PasswordHasher.isHash(stored));
+        assertFalse(stored.contains("secret1"));
+        assertTrue(hasher.verify("secret1", stored));
+        assertFalse(hasher.verify("secret2", stored));
+        assertFalse(hasher.verify("", stored));
+    }
+
+    @Test
+    public void samePassword_getsADifferentSaltEachTime() {
+        String a = hasher.hash("secret1");
+        String b = hasher.hash("secret1");
+
+        assertFalse(a.equals(b));
+        assertTrue(hasher.verify("secret1", a));
+        assertTrue(hasher.verify("secret1", b));
+    }
+
+    @Test
+    public void plainText_stillVerifiesAndNeedsRehash() {
+        assertTrue(hasher.verify("secret1", "secret1"));
+        assertFalse(hasher.verify("Secret1", "secret1"));
+        assertFalse(hasher.verify("secret1", null));
+        assertTrue(hasher.needsRehash("secret1"));
+    }
+
+    @Test
+    public void fewerIterationsThanCurrent_needsRehash() {
+        String cheap = new PasswordHasher(PasswordHasher.MIN_ITERATIONS / 2).hash("secret1");
+        String current = hasher.hash("secret1");
+
+        assertTrue(hasher.verify("secret1", cheap)); // the count is read from the stored hash
+        assertTrue(hasher.needsRehash(cheap));
+        assertFalse(hasher.needsRehash(current));
+    }
+
+    @Test
+    public void newHashes_areOneSha1Block() {
+        String stored = hasher.hash("secret1");
+        String hash = stored.substring(stored.lastIndexOf('$') + 1);
+
+        assertEquals(PasswordHasher.KEY_BITS / 4, hash.length());
+        assertEquals(40, hash.length());
+    }
+
+    @Test
+    public void olderLongerHashes_stillVerifyAndNeedRehash() {
+        byte[] salt = new byte[16];
+        int n = PasswordHasher.MIN_ITERATIONS;
+        String old = PasswordHasher.PREFIX + n + "$" + PasswordHasher.hex(salt) + "$" +
+                PasswordHasher.hex(PasswordHasher.derive("secret1", salt, n, 256));
+
+        assertTrue(hasher.verify("secret1", old));
+        assertFalse(hasher.verify("secret2", old));
+        assertTrue(hasher.needsRehash(old));
+    }
+
+    @Test
+    public void mangledHashes_doNotVerify() {
+        String stored = hasher.hash("secret1");
+
+        assertFalse(hasher.verify("secret1", stored.substring(0, stored.length() - 1)));
+        assertFalse(hasher.verify("secret1", PasswordHasher.PREFIX + "x$00$00"));
+        assertFalse(hasher.verify("secret1", PasswordHasher.PREFIX + "1000$zz$00"));
+        assertFalse(hasher.verify("secret1", PasswordHasher.PREFIX));
+    }
+
+    @Test
+    public void calibration_isSavedAndReused() {
+        int[] saved = {0};
+        int[] loads = {0};
+        PasswordHasher.Settings settings = new PasswordHasher.Settings() {
+            @Override public int loadIterations() { loads[0]++; return saved[0]; }
+
+            @Override public void saveIterations(int iterations) { saved[0] = iterations; }
+        };
+
+        int n = new PasswordHasher(settings, 5).iterations();
+        assertTrue(n >= PasswordHasher.MIN_ITERATIONS && n <= PasswordHasher.MAX_ITERATIONS);
+        assertEquals(n, saved[0]);
+
+        PasswordHasher next = new PasswordHasher(settings, 5);
+        assertEquals(n, next.iterations());
+        assertEquals(n, next.iterations());
+        assertEquals(2, loads[0]); // once per instance
+    }
+
+    @Test
+    public void answers_areNormalizedBeforeHashing() {
+        assertEquals("blue", PasswordHasher.normalizeAnswer("  Blue "));
+        assertEquals("", PasswordHasher.normalizeAnswer(null));
+    }
+}
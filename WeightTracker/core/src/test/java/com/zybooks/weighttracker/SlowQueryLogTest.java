@@ -0,0 +1,58 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SlowQueryLog}: the threshold, the ring keeping only the newest
+ * entries, and argument shapes that leave the values out.
+ */
+public class SlowQueryLogTest {
+
+    @Test
+    public void isSlow_atOrAboveThreshold() {
+        SlowQueryLog log = new SlowQueryLog(4, 1_000);
+        assertFalse(log.isSlow(999));
+        assertTrue(log.isSlow(1_000));
+
+        log.setThresholdNanos(0);
+        assertTrue(log.isSlow(0));
+    }
+
+    @Test
+    public void ring_keepsNewestFirst() {
+        SlowQueryLog log = new SlowQueryLog(3, 0);
+        assertTrue(log.entries().isEmpty());
+        for (int i = 1; i <= 5; i++) log.record("q" + i, "()", i, "SCAN t");
+
+        List<SlowQueryLog.Entry> entries = log.entries();
+        assertEquals(3, entries.size());
+        assertEquals("q5", entries.get(0).sql);
+        assertEquals("q4", entries.get(1).sql);
+        assertEquals("q3", entries.get(2).sql);
+        assertEquals(5, log.getRecorded());
+    }
+
+    @Test
+    public void clear_emptiesTheRing() {
+        SlowQueryLog log = new SlowQueryLog(3, 0);
+        log.record("q1", "()", 1, "");
+        log.clear();
+        assertTrue(log.entries().isEmpty());
+        assertEquals(0, log.getRecorded());
+
+        log.record("q2", "()", 1, "");
+        assertEquals("q2", log.entries().get(0).sql);
+    }
+
+    @Test
+    public void argShape_hidesValues() {
+        assertEquals("()", SlowQueryLog.argShape(null));
+        assertEquals("(int, int, real, text[5], null)",
+                SlowQueryLog.argShape(new String[]{"42", "-7", "180.5", "alice", null}));
+        assertEquals("(text[15])", SlowQueryLog.argShape(new String[]{"a@example.com  "}));
+    }
+}
@@ -0,0 +1,160 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WeightSeries}: after any mix of edits the arrays must stay in
+ * (day, id) order, match a plain list of the same entries, and report each change by index.
+ */
+public class WeightSeriesTest {
+
+    private static final double EPS = 1e-6;
+
+    // Reference copy of the entries: {id, day, weight * 10}
+    private static final Comparator<long[]> ORDER = (a, b) ->
+            a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(a[0], b[0]);
+
+    // Replays listener calls onto a plain list so the reported indexes can be checked
+    private static class Mirror implements WeightSeries.Listener {
+        final WeightSeries series;
+        final List<Long> ids = new ArrayList<>();
+
+        Mirror(WeightSeries series) {
+            this.series = series;
+        }
+
+        @Override public void onInserted(int index) { ids.add(index, series.idAt(index)); }
+
+        @Override public void onRemoved(int index) { ids.remove(index); }
+
+        @Override public void onChanged(int index) { assertEquals((long) ids.get(index), series.idAt(index)); }
+    }
+
+    @Test
+    public void randomEdits_keepOrderStatsAndListenerInSync() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Random rnd = new Random(seed);
+            WeightSeries series = new WeightSeries(7, new long[0], new int[0], new double[0], 0);
+            Mirror mirror = new Mirror(series);
+            series.addListener(mirror);
+            List<long[]> expected = new ArrayList<>();
+            long nextId = 1;
+
+            for (int op = 0; op < 2_000; op++) {
+                int choice = rnd.nextInt(10);
+                int day = 20_000 + rnd.nextInt(300);
+                int tenths = 1400 + rnd.nextInt(800);
+                if (choice < 5 || expected.isEmpty()) {
+                    long id = nextId++;
+                    series.add(id, day, tenths / 10.0);
+                    expected.add(new long[]{id, day, tenths});
+                } else if (choice < 7) {
+                    long[] e = expected.get(rnd.nextInt(expected.size()));
+                    assertTrue(series.update(e[0], day, tenths / 10.0));
+                    e[1] = day;
+                    e[2] = tenths;
+                } else {
+                    long[] e = expected.remove(rnd.nextInt(expected.size()));
+                    assertTrue(series.remove(e[0]));
+                }
+                expected.sort(ORDER);
+                assertMatches("seed " + seed + " op " + op, expected, series, mirror);
+            }
+        }
+    }
+
+    @Test
+    public void unknownIds_areIgnored() {
+        WeightSeries series = new WeightSeries(7, new long[]{1}, new int[]{100}, new double[]{180}, 1);
+        assertFalse(series.remove(2));
+        assertFalse(series.update(2, 100, 170));
+        assertEquals(1, series.size());
+        assertEquals(-1, series.indexOf(2));
+    }
+
+    @Test
+    public void minMax_followRemovedAndEditedExtremes() {
+        WeightSeries series = new WeightSeries(7, new long[]{1, 2, 3, 4}, new int[]{1, 2, 3, 4},
+                new double[]{180, 170, 170, 190}, 4);
+        assertEquals(170, series.min(), 0);
+        assertEquals(190, series.max(), 0);
+
+        series.remove(2); // one of two 170s
+        assertEquals(170, series.min(), 0);
+        series.remove(3);
+        assertEquals(180, series.min(), 0);
+        series.update(4, 4, 185); // edit the max in place
+        assertEquals(185, series.max(), 0);
+        series.add(5, 5, 160);
+        assertEquals(160, series.min(), 0);
+        assertEquals(160, series.getStats().getMin(), 0);
+        assertEquals(185, series.getStats().getMax(), 0);
+
+        series.remove(1);
+        series.remove(4);
+        series.remove(5);
+        assertEquals(0, series.min(), 0);
+        assertEquals(0, series.max(), 0);
+    }
+
+    @Test
+    public void loadedArrays_seedStats() {
+        WeightSeries series = new WeightSeries(7, new long[]{1, 2, 3}, new int[]{1, 2, 3},
+                new double[]{180, 175, 170}, 3);
+        assertEquals(3, series.getStats().getCount());
+        assertEquals(175, series.getStats().getMean(), EPS);
+        assertEquals(-10, series.getStats().getTotalChange(), EPS);
+    }
+
+    @Test
+    public void savedStats_areUsedAsIs() {
+        WeightStats saved = WeightStats.recompute(new double[]{180, 175, 170}, 3);
+        WeightSeries series = new WeightSeries(7, new long[]{1, 2, 3}, new int[]{1, 2, 3},
+                new double[]{180, 175, 170}, 3, saved);
+        assertSame(saved, series.getStats());
+
+        series.add(4, 4, 165);
+        assertEquals(4, saved.getCount());
+        assertEquals(-15, saved.getTotalChange(), EPS);
+    }
+
+    @Test
+    public void savedStats_forOtherEntries_areRejected() {
+        try {
+            new WeightSeries(7, new long[]{1}, new int[]{1}, new double[]{180}, 1, new WeightStats());
+            fail("stats for 0 entries accepted for 1");
+        } catch (IllegalArgumentException expected) {
+            // the caller counts them again instead
+        }
+    }
+
+    private static void assertMatches(String where, List<long[]> expected, WeightSeries series, Mirror mirror) {
+        assertEquals(where, expected.size(), series.size());
+        double[] weights = new double[expected.size()];
+        for (int i = 0; i < expected.size(); i++) {
+            long[] e = expected.get(i);
+            assertEquals(where, e[0], series.idAt(i));
+            assertEquals(where, e[1], series.dayAt(i));
+            assertEquals(where, e[2] / 10.0, series.weightAt(i), 0);
+            assertEquals(where, e[0], (long) mirror.ids.get(i));
+            weights[i] = e[2] / 10.0;
+        }
+
+        WeightStats want = WeightStats.recompute(weights, weights.length);
+        WeightStats got = series.getStats();
+        assertEquals(where, want.getCount(), got.getCount());
+        if (weights.length == 0) return;
+        assertEquals(where, want.getMean(), got.getMean(), EPS);
+        assertEquals(where, want.getMin(), got.getMin(), 0);
+        assertEquals(where, want.getMax(), got.getMax(), 0);
+        assertEquals(where, want.getEma(), got.getEma(), EPS);
+        assertEquals(where, want.getTotalChange(), got.getTotalChange(), EPS);
+    }
+}
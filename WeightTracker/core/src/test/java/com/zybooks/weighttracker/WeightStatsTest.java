@@ -0,0 +1,165 @@
+package com.zybooks.weighttracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WeightStats}: the incremental state must always match a full
+ * recomputation over the same series.
+ */
+public class WeightStatsTest {
+
+    private static final double EPS = 1e-6;
+
+    // In-memory stand-in for the stored series, kept in (day, id) order like the weights index
+    private static class ListSeries implements WeightStats.Series {
+        final List<long[]> keys = new ArrayList<>(); // {day, id}
+        final List<Double> weights = new ArrayList<>();
+        long nextId = 1;
+
+        long add(int day, double w) {
+            long id = nextId++;
+            int i = 0;
+            while (i < keys.size() && compare(keys.get(i), day, id) < 0) i++;
+            keys.add(i, new long[]{day, id});
+            weights.add(i, w);
+            return id;
+        }
+
+        int indexOf(long id) {
+            for (int i = 0; i < keys.size(); i++) if (keys.get(i)[1] == id) return i;
+            throw new AssertionError("no id " + id);
+        }
+
+        double remove(long id) {
+            int i = indexOf(id);
+            keys.remove(i);
+            return weights.remove(i);
+        }
+
+        // Moves an entry to a new day/weight, keeping its id
+        double replace(long id, int day, double w) {
+            double old = remove(id);
+            int i = 0;
+            while (i < keys.size() && compare(keys.get(i), day, id) < 0) i++;
+            keys.add(i, new long[]{day, id});
+            weights.add(i, w);
+            return old;
+        }
+
+        private static int compare(long[] key, int day, long id) {
+            if (key[0] != day) return Long.compare(key[0], day);
+            return Long.compare(key[1], id);
+        }
+
+        double[] oldestFirst() {
+            double[] out = new double[weights.size()];
+            for (int i = 0; i < out.length; i++) out[i] = weights.get(i);
+            return out;
+        }
+
+        @Override public double min() {
+            double m = Double.MAX_VALUE;
+            for (double w : weights) m = Math.min(m, w);
+            return m;
+        }
+
+        @Override public double max() {
+            double m = -Double.MAX_VALUE;
+            for (double w : weights) m = Math.max(m, w);
+            return m;
+        }
+
+        @Override public double first() { return weights.get(0); }
+
+        @Override public double last() { return weights.get(weights.size() - 1); }
+
+        @Override public int recent(double[] out) {
+            int n = Math.min(out.length, weights.size());
+            for (int i = 0; i < n; i++) out[i] = weights.get(weights.size() - 1 - i);
+            return n;
+        }
+    }
+
+    @Test
+    public void randomEdits_matchFullRecomputation() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Random rnd = new Random(seed);
+            ListSeries series = new ListSeries();
+            List<Long> ids = new ArrayList<>();
+            WeightStats stats = new WeightStats();
+
+            for (int op = 0; op < 2_000; op++) {
+                int choice = rnd.nextInt(10);
+                // dates are random so plenty of entries are backdated
+                int day = 20_000 + rnd.nextInt(400);
+                double w = 140 + rnd.nextInt(800) / 10.0;
+                if (choice < 5 || ids.isEmpty()) {
+                    ids.add(series.add(day, w));
+                    stats.onAdded(w, series);
+                } else if (choice < 7) {
+                    long id = ids.get(rnd.nextInt(ids.size()));
+                    double old = series.replace(id, day, w);
+                    stats.onReplaced(old, w, series);
+                } else if (choice < 9) {
+                    long id = ids.remove(rnd.nextInt(ids.size()));
+                    stats.onRemoved(series.remove(id), series);
+                } else {
+                    WeightStats batch = new WeightStats();
+                    for (int i = rnd.nextInt(20); i > 0; i--) {
+                        double bw = 140 + rnd.nextInt(800) / 10.0;
+                        ids.add(series.add(20_000 + rnd.nextInt(400), bw));
+                        batch.add(bw);
+                    }
+                    stats.onBatchAdded(batch, series);
+                }
+                assertMatches("seed " + seed + " op " + op, series, stats);
+            }
+        }
+    }
+
+    @Test
+    public void removingEverything_resetsToEmpty() {
+        ListSeries series = new ListSeries();
+        WeightStats stats = new WeightStats();
+        long a = series.add(1, 180);
+        stats.onAdded(180, series);
+        long b = series.add(2, 170);
+        stats.onAdded(170, series);
+
+        stats.onRemoved(series.remove(a), series);
+        stats.onRemoved(series.remove(b), series);
+
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMean(), 0);
+        assertEquals(0, stats.getVariance(), 0);
+        assertEquals(0, stats.getTotalChange(), 0);
+    }
+
+    @Test
+    public void ema_usesNewestWindowOnly() {
+        double[] series = new double[100];
+        for (int i = 0; i < series.length; i++) series[i] = i < 70 ? 500 : 150;
+
+        // the first 70 entries fall outside the window, so the EMA never sees 500
+        assertEquals(150, WeightStats.recompute(series, series.length).getEma(), EPS);
+    }
+
+    private static void assertMatches(String where, ListSeries series, WeightStats actual) {
+        double[] all = series.oldestFirst();
+        WeightStats expected = WeightStats.recompute(all, all.length);
+        assertEquals(where, expected.getCount(), actual.getCount());
+        if (all.length == 0) return;
+        assertEquals(where, expected.getMean(), actual.getMean(), EPS);
+        assertEquals(where, expected.getVariance(), actual.getVariance(), 1e-4);
+        assertEquals(where, expected.getMin(), actual.getMin(), 0);
+        assertEquals(where, expected.getMax(), actual.getMax(), 0);
+        assertEquals(where, expected.getEma(), actual.getEma(), EPS);
+        assertEquals(where, expected.getTotalChange(), actual.getTotalChange(), EPS);
+    }
+}